@@ -0,0 +1,79 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.repository.ReadingActivityHistoryRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves returned loans from ReadingActivity to ReadingActivityHistory, so the loan table
+ * (and every lookup of open loans) only holds what is still out plus the loans returned
+ * since the last run.
+ *
+ * Each batch is copied and deleted in its own short transaction: a failure leaves the
+ * batch where it was, and the loan table is never locked for the whole backlog.
+ */
+@Service
+public class ActivityArchiver {
+
+    @Autowired
+    private ReadingActivityRepository readingActivityRepository;
+    @Autowired
+    private ReadingActivityHistoryRepository historyRepository;
+
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ActivityArchiver(
+            PlatformTransactionManager transactionManager,
+            @Value("${library.archive.enabled:true}") boolean enabled,
+            @Value("${library.archive.batch-size:1000}") int batchSize) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+
+    @Scheduled(fixedDelayString = "${library.archive.interval-ms:300000}",
+            initialDelayString = "${library.archive.interval-ms:300000}")
+    public void archiveOnSchedule() {
+        if (enabled) archiveReturnedLoans();
+    }
+
+
+    // Archive every returned loan, one batch per transaction; returns the number of loans moved
+    public long archiveReturnedLoans() {
+        long start = System.nanoTime();
+        long moved = 0;
+        int batch;
+        do {
+            batch = transaction.execute(status -> archiveBatch());
+            moved += batch;
+        } while (batch == batchSize);
+
+        if (moved > 0) {
+            System.out.println("🗄️ Archived " + moved + " returned loans in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return moved;
+    }
+
+
+    private int archiveBatch() {
+        List<Long> ids = readingActivityRepository.findReturnedIds(Limit.of(batchSize));
+        if (ids.isEmpty()) return 0;
+
+        historyRepository.copyReturned(ids, LocalDateTime.now());
+        readingActivityRepository.deleteReturned(ids);
+        return ids.size();
+    }
+}
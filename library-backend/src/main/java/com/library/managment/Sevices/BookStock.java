@@ -0,0 +1,66 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.model.Book;
+
+/**
+ * In-memory copy count of one book, used for the decisions taken under the book lock.
+ *
+ * Keeps its own unmanaged copy of the Book (shown in admin notifications) whose
+ * availableCopies is the counter itself, so it can change without touching JPA.
+ * The database is updated after the lock is released and stays the final word
+ * when several nodes lend the same book.
+ *
+ * Not thread-safe: callers hold the book lock.
+ */
+public class BookStock {
+
+    private final Book book = new Book();
+
+    public BookStock(Book source) {
+        reset(source);
+    }
+
+    // Take over title, copies, ... from a freshly loaded book
+    public void reset(Book source) {
+        book.setId(source.getId());
+        book.setTitle(source.getTitle());
+        book.setAuthor(source.getAuthor());
+        book.setImageUrl(source.getImageUrl());
+        book.setTotalCopies(source.getTotalCopies());
+        book.setAvailableCopies(source.getAvailableCopies());
+    }
+
+    public Book book() {
+        return book;
+    }
+
+    // Detached copy as of now, for notifications that must not change after they are published
+    public Book snapshot() {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setImageUrl(book.getImageUrl());
+        copy.setTotalCopies(book.getTotalCopies());
+        copy.setAvailableCopies(book.getAvailableCopies());
+        return copy;
+    }
+
+    public int available() {
+        return book.getAvailableCopies();
+    }
+
+    // Reserve a copy, returns false if none is left
+    public boolean take() {
+        if (book.getAvailableCopies() <= 0) return false;
+        book.setAvailableCopies(book.getAvailableCopies() - 1);
+        return true;
+    }
+
+    // Put a copy back, never above totalCopies
+    public void giveBack() {
+        if (book.getAvailableCopies() < book.getTotalCopies()) {
+            book.setAvailableCopies(book.getAvailableCopies() + 1);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.library.managment.Sevices;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.managment.dto.ImportResult;
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Imports books and members from NDJSON (one object per line) or CSV (a header row
+ * naming the JSON properties, then one row per record), read as the request arrives.
+ *
+ * Rows go in as JDBC batches of plain INSERTs, not through Hibernate: with IDENTITY ids
+ * Hibernate sends one INSERT per entity, while a JDBC batch is a single round trip (a
+ * single multi-row INSERT on MySQL with rewriteBatchedStatements). Each chunk of
+ * library.import.chunk-size rows is committed on its own, then the new rows are
+ * added to the search index (and new members enter the library), as createBooks and
+ * createMembers do. A malformed row stops the import; the chunks before it stay.
+ */
+@Service
+public class BulkImportService {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public enum Format {
+        NDJSON, CSV;
+
+        // From a request Content-Type; anything but text/csv is read as NDJSON
+        public static Format of(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(TEXT_CSV_VALUE) ? CSV : NDJSON;
+        }
+    }
+
+    private static final String INSERT_BOOK = "INSERT INTO book (title, author, image_url, total_copies, available_copies) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_MEMBER = "INSERT INTO member (name, image_url, is_active) VALUES (?, ?, TRUE)";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private LibraryService libraryService;
+
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+
+    public BulkImportService(
+            PlatformTransactionManager transactionManager,
+            @Value("${library.import.chunk-size:5000}") int chunkSize) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+
+    // Insert every book of the input, each prepared by initialize first
+    public ImportResult importBooks(InputStream in, Format format, UnaryOperator<Book> initialize) throws IOException {
+        long[] indexedUpTo = {bookRepository.findMaxId()};
+        return run(rows(in, format, Book.class), initialize, INSERT_BOOK,
+                b -> new Object[]{b.getTitle(), b.getAuthor(), b.getImageUrl(), b.getTotalCopies(), b.getAvailableCopies()},
+                () -> indexedUpTo[0] = searchIndex.booksAddedAfter(indexedUpTo[0]));
+    }
+
+
+    // Insert every member of the input, each prepared by initialize first; they enter the library
+    public ImportResult importMembers(InputStream in, Format format, UnaryOperator<Member> initialize) throws IOException {
+        long[] indexedUpTo = {memberRepository.findMaxId()};
+        return run(rows(in, format, Member.class), initialize, INSERT_MEMBER,
+                m -> new Object[]{m.getName(), m.getImageUrl()},
+                () -> indexedUpTo[0] = searchIndex.membersAddedAfter(indexedUpTo[0], libraryService::userEntersLibrary));
+    }
+
+
+    private <T> ImportResult run(RowReader<T> rows, UnaryOperator<T> initialize, String sql,
+                                 Function<T, Object[]> columns, Runnable afterChunk) throws IOException {
+        long start = System.nanoTime();
+        long imported = 0;
+        long chunks = 0;
+        List<Object[]> chunk = new ArrayList<>(chunkSize);
+
+        try (rows) {
+            T row;
+            while ((row = next(rows, imported)) != null) {
+                chunk.add(columns.apply(initialize.apply(row)));
+                if (chunk.size() == chunkSize) {
+                    imported += commit(sql, chunk, afterChunk);
+                    chunks++;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                imported += commit(sql, chunk, afterChunk);
+                chunks++;
+            }
+        }
+
+        ImportResult result = ImportResult.of(imported, chunks, System.nanoTime() - start);
+        System.out.println("📥 Imported " + result.rows() + " rows in " + result.millis() + " ms ("
+                + result.rowsPerSecond() + " rows/s)");
+        return result;
+    }
+
+
+    private static <T> T next(RowReader<T> rows, long imported) throws IOException {
+        try {
+            return rows.next();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " (" + imported + " rows imported before it)", e);
+        }
+    }
+
+
+    private int commit(String sql, List<Object[]> chunk, Runnable afterChunk) {
+        transaction.executeWithoutResult(status -> jdbc.batchUpdate(sql, chunk));
+        int size = chunk.size();
+        chunk.clear();
+        afterChunk.run();
+        return size;
+    }
+
+
+    // ========== PARSING ==========
+
+    // Reads one row at a time; next() fails with IllegalArgumentException on a malformed row
+    private interface RowReader<T> extends Closeable {
+        T next() throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    private <T> RowReader<T> rows(InputStream in, Format format, Class<T> type) throws IOException {
+        return format == Format.CSV ? csvRows(in, type) : ndjsonRows(in, type);
+    }
+
+    private <T> RowReader<T> ndjsonRows(InputStream in, Class<T> type) throws IOException {
+        MappingIterator<T> it = objectMapper.readerFor(type).readValues(in);
+        return new RowReader<>() {
+            @Override
+            public T next() {
+                try {
+                    return it.hasNextValue() ? it.nextValue() : null;
+                } catch (IOException e) {
+                    String reason = e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+                    throw malformed(it.getCurrentLocation().getLineNr(), reason);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                it.close();
+            }
+        };
+    }
+
+    private <T> RowReader<T> csvRows(InputStream in, Class<T> type) throws IOException {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        String[] header = csv.next();
+        if (header == null) return () -> null;
+        Map<String, String> fields = new HashMap<>();
+        return new RowReader<>() {
+            @Override
+            public T next() {
+                long line = csv.line();
+                String[] values;
+                try {
+                    values = csv.next();
+                } catch (IOException e) {
+                    throw malformed(line, e.getMessage());
+                }
+                if (values == null) return null;
+                if (values.length != header.length) {
+                    throw malformed(line, values.length + " fields, the header has " + header.length);
+                }
+                fields.clear();
+                for (int i = 0; i < header.length; i++) {
+                    if (!values[i].isEmpty()) fields.put(header[i].trim(), values[i]);
+                }
+                try {
+                    return objectMapper.convertValue(fields, type);
+                } catch (IllegalArgumentException e) {
+                    throw malformed(line, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private static IllegalArgumentException malformed(long line, String reason) {
+        return new IllegalArgumentException("Line " + line + ": " + reason);
+    }
+}
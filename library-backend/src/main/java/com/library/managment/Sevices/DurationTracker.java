@@ -0,0 +1,49 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.util.MemberBookIndex;
+
+/**
+ * How long each member wants to read each book they are waiting for (in hours).
+ *
+ * Entries are grouped per member, so forgetting everything about a member
+ * (they left, or were evicted from a queue) only touches their own entries
+ * instead of scanning every (book, member) pair in the library.
+ * Safe for concurrent use from different book locks.
+ */
+public class DurationTracker {
+
+    // memberId -> (bookId -> hours), without boxing
+    private final MemberBookIndex memberDurations = new MemberBookIndex();
+
+
+    public void put(long bookId, long memberId, int hours) {
+        memberDurations.put(memberId, bookId, hours);
+    }
+
+
+    public int getOrDefault(long bookId, long memberId, int defaultHours) {
+        return memberDurations.getOrDefault(memberId, bookId, defaultHours);
+    }
+
+
+    public void remove(long bookId, long memberId) {
+        memberDurations.remove(memberId, bookId);
+    }
+
+
+    // Forget every book this member asked for
+    public void removeMember(long memberId) {
+        memberDurations.removeMember(memberId);
+    }
+
+
+    public void clear() {
+        memberDurations.clear();
+    }
+
+
+    // Number of (book, member) entries
+    public int size() {
+        return memberDurations.size();
+    }
+}
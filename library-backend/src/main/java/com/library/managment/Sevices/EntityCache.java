@@ -0,0 +1,116 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.util.ExpiringLruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Books and members by id, kept in memory so the same hot rows are not read again on
+ * every request.
+ *
+ * Every write goes through LibraryService, which invalidates the row it changed
+ * (admin edits, deletes, copies taken or given back, members entering or leaving).
+ * Inside a transaction the row is invalidated again when it ends, so a load that read
+ * the row before the commit is not kept. Rows changed by another backend node are seen
+ * once their entry expires.
+ *
+ * Cached entities are shared: read them, never change and save them.
+ */
+@Service
+public class EntityCache {
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private LibraryMetrics metrics;
+
+    private final ExpiringLruCache<Book> books;
+    private final ExpiringLruCache<Member> members;
+
+
+    public EntityCache(
+            @Value("${library.cache.max-books:10000}") int maxBooks,
+            @Value("${library.cache.max-members:10000}") int maxMembers,
+            @Value("${library.cache.ttl-seconds:60}") long ttlSeconds) {
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.books = new ExpiringLruCache<>(maxBooks, ttlNanos);
+        this.members = new ExpiringLruCache<>(maxMembers, ttlNanos);
+    }
+
+
+    @PostConstruct
+    public void registerMetrics() {
+        metrics.cache("books", books);
+        metrics.cache("members", members);
+    }
+
+
+    public Optional<Book> book(Long bookId) {
+        return Optional.ofNullable(books.get(bookId, id -> bookRepository.findById(id).orElse(null)));
+    }
+
+    public Optional<Member> member(Long memberId) {
+        return Optional.ofNullable(members.get(memberId, id -> memberRepository.findById(id).orElse(null)));
+    }
+
+
+    // ========== INVALIDATION ==========
+
+    public void bookChanged(Long bookId) {
+        invalidate(books, bookId);
+    }
+
+    public void memberChanged(Long memberId) {
+        invalidate(members, memberId);
+    }
+
+    // Now, and once more when the current transaction (if any) commits or rolls back
+    private static void invalidate(ExpiringLruCache<?> cache, Long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        books.invalidateAll();
+        members.invalidateAll();
+    }
+
+    // Expired entries are otherwise only dropped when read again
+    @Scheduled(fixedDelayString = "${library.cache.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        books.cleanUp();
+        members.cleanUp();
+    }
+
+
+    // ========== METRICS ==========
+
+    public ExpiringLruCache<Book> books() {
+        return books;
+    }
+
+    public ExpiringLruCache<Member> members() {
+        return members;
+    }
+}
@@ -0,0 +1,76 @@
+package com.library.managment.Sevices;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables as newline-delimited JSON (one entity per line).
+ *
+ * Rows come from a repository Stream, i.e. a JDBC cursor read in fetch-size chunks,
+ * and are serialized straight to the response as they arrive. Each entity is detached
+ * once written and the persistence context is cleared regularly (dropping the books and
+ * members loaded with activities), so memory stays flat however large the table is.
+ */
+@Service
+public class ExportService {
+
+    // Rows written between two clears of the persistence context
+    private static final int CLEAR_EVERY = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectWriter writer;
+
+    public ExportService(@Autowired ObjectMapper objectMapper) {
+        // Flushed by the generator's buffer, not after every row
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+    }
+
+
+    // Stream the query result to out as NDJSON; returns the number of rows written
+    @Transactional(readOnly = true)
+    public <T> long writeNdjson(Supplier<Stream<T>> query, OutputStream out) throws IOException {
+        return writeNdjson(List.of(query), out);
+    }
+
+
+    // Stream the results of several queries one after the other, each opened once the previous one is done
+    @Transactional(readOnly = true)
+    public long writeNdjson(List<? extends Supplier<? extends Stream<?>>> queries, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            // The servlet container closes its own stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            for (Supplier<? extends Stream<?>> query : queries) {
+                try (Stream<?> stream = query.get()) {
+                    for (Iterator<?> it = stream.iterator(); it.hasNext(); ) {
+                        Object row = it.next();
+                        writer.writeValue(generator, row);
+                        entityManager.detach(row);
+                        if (++rows % CLEAR_EVERY == 0) entityManager.clear();
+                    }
+                }
+            }
+            if (rows > 0) generator.writeRaw('\n');
+        }
+        return rows;
+    }
+}
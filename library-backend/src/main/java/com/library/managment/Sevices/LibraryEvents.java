@@ -0,0 +1,89 @@
+package com.library.managment.Sevices;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by LibraryService.
+ *
+ * All are disabled unless the recording uses the settings in jfr/library.jfc, and
+ * without a running recording begin()/commit() do nothing. Fields are only filled in
+ * when shouldCommit() is true.
+ */
+public final class LibraryEvents {
+
+    private LibraryEvents() {
+    }
+
+    @Name("library.BookLockContended")
+    @Label("Book Lock Contended")
+    @Description("A thread waited for a book lock held by someone else; the duration is the wait")
+    @Category("Library")
+    @Enabled(false)
+    public static class BookLockContended extends Event {
+        @Label("Book Id")
+        long bookId;
+    }
+
+    @Name("library.BorrowRequest")
+    @Label("Borrow Request")
+    @Description("LibraryService.requestBook, from the day lock to the saved loan")
+    @Category("Library")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class BorrowRequest extends Event {
+        @Label("Member Id")
+        long memberId;
+
+        @Label("Book Id")
+        long bookId;
+
+        @Label("Outcome")
+        @Description("assigned, queued, or refused (not in the library or already borrowing the book)")
+        String outcome;
+
+        @Label("Rank")
+        @Description("Place in the waiting list when queued")
+        long rank;
+
+        @Label("Requested Hours")
+        int hours;
+    }
+
+    @Name("library.NotificationRefill")
+    @Label("Notification Refill")
+    @Description("Rebuild of the members notified about a book")
+    @Category("Library")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class NotificationRefill extends Event {
+        @Label("Book Id")
+        long bookId;
+
+        @Label("Candidates Scanned")
+        int scanned;
+
+        @Label("Members Evicted")
+        @Description("Queued members dropped because they left the library or were deleted")
+        int evicted;
+    }
+
+    @Name("library.NightlyReset")
+    @Label("Nightly Reset")
+    @Description("The 20:00 resetLibraryMemory")
+    @Category("Library")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class NightlyReset extends Event {
+        @Label("Members Deactivated")
+        int membersDeactivated;
+
+        @Label("Queued Requests Cleared")
+        int queuedRequests;
+    }
+}
@@ -0,0 +1,142 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.util.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the LibraryService hot paths, served in Prometheus format
+ * at /actuator/prometheus.
+ *
+ * Meters are created once, so recording is a few atomic adds on the request path.
+ * With management.metrics.enable.library=false every meter is a no-op.
+ */
+@Component
+public class LibraryMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Timer requestBook;
+    private final Timer returnBook;
+    private final Timer approveNextReader;
+    private final Timer userLeavesLibrary;
+    private final Timer requestBooks;
+    private final Timer returnBooks;
+
+    // One histogram over all books: a tag per book id would create a series per title
+    private final Timer lockWait;
+    private final Timer lockHold;
+
+    private final Counter refills;
+    private final Counter evictions;
+
+
+    public LibraryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.requestBook = operation("requestBook");
+        this.returnBook = operation("returnBook");
+        this.approveNextReader = operation("approveNextReader");
+        this.userLeavesLibrary = operation("userLeavesLibrary");
+        this.requestBooks = operation("requestBooks");
+        this.returnBooks = operation("returnBooks");
+        this.lockWait = lockTimer("library.book.lock.wait",
+                "Time spent waiting for a book lock held by someone else (contended acquisitions only)");
+        this.lockHold = lockTimer("library.book.lock.hold", "Time a book lock was held");
+        this.refills = Counter.builder("library.notifications.refills")
+                .description("Rebuilds of a book's notified members")
+                .register(registry);
+        this.evictions = Counter.builder("library.waitlist.evictions")
+                .description("Members dropped from a queue because they left the library or were deleted")
+                .register(registry);
+    }
+
+    private Timer operation(String name) {
+        return Timer.builder("library.operation")
+                .description("LibraryService operations, transaction commit excluded")
+                .tag("operation", name)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer lockTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(registry);
+    }
+
+
+    // A value read at scrape time
+    public void gauge(String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value).description(description).register(registry);
+    }
+
+
+    // Hits, misses, evictions and size of an entity cache, read from its own counters at scrape time
+    public void cache(String name, ExpiringLruCache<?> cache) {
+        FunctionCounter.builder("library.cache.gets", cache, ExpiringLruCache::hits)
+                .description("Entity cache lookups").tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("library.cache.gets", cache, ExpiringLruCache::misses)
+                .description("Entity cache lookups").tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("library.cache.evictions", cache, ExpiringLruCache::evictions)
+                .description("Entries dropped for size or age").tag("cache", name)
+                .register(registry);
+        Gauge.builder("library.cache.size", cache, ExpiringLruCache::size)
+                .description("Cached entries").tag("cache", name)
+                .register(registry);
+    }
+
+
+    public void requestBook(long nanos) {
+        requestBook.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void returnBook(long nanos) {
+        returnBook.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void approveNextReader(long nanos) {
+        approveNextReader.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void userLeavesLibrary(long nanos) {
+        userLeavesLibrary.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Whole batches, however many items they hold
+    public void requestBooks(long nanos) {
+        requestBooks.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void returnBooks(long nanos) {
+        returnBooks.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lockWaited(long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lockHeld(long nanos) {
+        lockHold.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void notificationsRefilled() {
+        refills.increment();
+    }
+
+    public void memberEvicted() {
+        evictions.increment();
+    }
+}
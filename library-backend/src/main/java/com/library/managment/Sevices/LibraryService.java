@@ -1,7 +1,8 @@
 package com.library.managment.Sevices;
 
 import com.library.managment.dto.BookBorrowResponse;
-import com.library.managment.dto.BookMemberDTO;
+import com.library.managment.dto.BorrowRequest;
+import com.library.managment.dto.NotificationEvent;
 import com.library.managment.model.Book;
 import com.library.managment.model.Member;
 import com.library.managment.model.Notification;
@@ -9,18 +10,29 @@ import com.library.managment.model.ReadingActivity;
 import com.library.managment.repository.BookRepository;
 import com.library.managment.repository.MemberRepository;
 import com.library.managment.repository.ReadingActivityRepository;
+import com.library.managment.util.ConcurrentIdSet;
+import com.library.managment.util.ConcurrentLongObjectMap;
+import com.library.managment.util.LongIntHashMap;
+import com.library.managment.util.MemberBookIndex;
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Service
 public class LibraryService {
 
@@ -33,146 +45,693 @@ public class LibraryService {
     @Autowired
     private ReadingActivityRepository readingActivityRepository;
 
+    @Autowired
+    private NotificationStreamService notificationStream;
+
+    @Autowired
+    private WaitListJournal journal;
+
+    @Autowired
+    private OverdueLoans overdueLoans;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private LibraryMetrics metrics;
+
     // Maximum number of members to notify when a book becomes available
     private static final int NOTIFY_LIMIT = 3;
 
-    // Stores IDs of users currently inside the library (thread-safe)
-    private final Set<Long> activeUsers = ConcurrentHashMap.newKeySet();
+    // All in-memory state below uses primitive long keys, so hot-path lookups allocate nothing
 
-    // Waiting list for each book (BookId -> ordered set of memberIds)
-    private final Map<Long, LinkedHashSet<Long>> bookWaitList = new ConcurrentHashMap<>();
+    // Stores IDs of users currently inside the library (thread-safe bitset)
+    private final ConcurrentIdSet activeUsers = new ConcurrentIdSet();
+
+    // Waiting list for each book (BookId -> memberIds in arrival order, with O(log n) rank)
+    private final ConcurrentLongObjectMap<WaitList> bookWaitList = new ConcurrentLongObjectMap<>();
 
     // Tracks how long each member wants to read a book
-    private final Map<BookMemberDTO, Integer> durationTracker = new ConcurrentHashMap<>();
+    private final DurationTracker durationTracker = new DurationTracker();
+
+    // Stores who should be notified about available copies (BookId -> top members, in queue order)
+    private final ConcurrentLongObjectMap<long[]> bookNotificationMembers = new ConcurrentLongObjectMap<>();
+
+    // Ready-made admin notifications per book, rebuilt whenever bookNotificationMembers changes
+    private final ConcurrentLongObjectMap<List<Notification>> bookNotifications = new ConcurrentLongObjectMap<>();
 
-    // Stores who should be notified about available copies (BookId -> top members)
-    private final Map<Long, LinkedHashSet<Long>> bookNotificationMembers = new ConcurrentHashMap<>();
+    // Bumped after every change to bookNotifications; the snapshot is rebuilt on the next poll
+    private final AtomicLong notificationsVersion = new AtomicLong();
+
+    // Immutable flattened view of bookNotifications as of a version, read without locking by admin polls
+    private volatile NotificationSnapshot notificationSnapshot = new NotificationSnapshot(0, List.of());
+
+    private record NotificationSnapshot(long version, List<Notification> notifications) {
+    }
 
     // Maps each member to the books they are currently waiting for
-    private final Map<Long, Set<Long>> memberWaitingBooks = new ConcurrentHashMap<>();
+    private final MemberBookIndex memberWaitingBooks = new MemberBookIndex();
+
+    // Copies available per book, loaded on first use and authoritative under the book lock (BookId -> stock)
+    private final ConcurrentLongObjectMap<BookStock> bookStock = new ConcurrentLongObjectMap<>();
+
+    // Members with pending requests, loaded before taking the lock (MemberId -> member).
+    // After a restart a queued member is missing here until the background load reaches them.
+    private final ConcurrentLongObjectMap<Member> waitingMembers = new ConcurrentLongObjectMap<>();
+
+    // Books whose notifications stopped at a queued member not loaded yet (refilled once they are)
+    private final ConcurrentLongObjectMap<Boolean> booksAwaitingMembers = new ConcurrentLongObjectMap<>();
+
+    // Fixed pool of locks to avoid race conditions on each book (never cleared)
+    private final StripedLocks bookLocks;
+
+    // Total time threads spent waiting for a book lock held by someone else
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    // Total time book locks were held (only in-memory work happens under them)
+    private final LongAdder lockHoldNanos = new LongAdder();
+
+    // Shared by requests that read or change who is in the library and who waits for what;
+    // the nightly reset takes it exclusively so nobody sees a half-cleared day
+    private final ReentrantReadWriteLock dayLock = new ReentrantReadWriteLock();
+
+    // Members and books loaded per query when restoring queues at startup
+    private static final int RESTORE_BATCH = 1000;
+
+    // Active member ids loaded per query at startup
+    private static final int WARMUP_BATCH = 10_000;
+
+    private volatile long activeMembersMillis;
 
-    // Locks to avoid race conditions on each book
-    private final Map<Long, Lock> bookLocks = new ConcurrentHashMap<>();
+    private volatile long journalReplayMillis;
+
+    // -1 while queued members restored from the journal are still being loaded
+    private volatile long queuedMembersMillis;
+
+    // Return loans automatically when they fall due, so the copy goes to the next reader
+    private final boolean autoReturnOverdue;
+
+    // One transaction per automatic return: the scheduler calls returnBook on this bean, not on its proxy
+    private final TransactionTemplate transaction;
+
+
+    public LibraryService(
+            @Value("${library.lock-stripes:1024}") int lockStripes,
+            @Value("${library.loans.auto-return:false}") boolean autoReturnOverdue,
+            PlatformTransactionManager transactionManager) {
+        this.bookLocks = new StripedLocks(lockStripes);
+        this.autoReturnOverdue = autoReturnOverdue;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
 
 
     /**
      * Runs ONCE at application start.
-     * Loads all active members from database into the in-memory "activeUsers" list.
+     * Loads the ids of all active members from database into the in-memory "activeUsers" set,
+     * page by page without loading the entities, then restores the waiting lists from the journal.
      */
     @PostConstruct
     public void initializeActiveMembers() {
         System.out.println("🚀 Initializing active members on first run...");
-        List<Member> activeMembers = memberRepository.findByIsActiveTrue();
-        for (Member m : activeMembers) {
-            activeUsers.add(m.getId());
+        long start = System.nanoTime();
+        int count = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = memberRepository.findActiveIdsAfter(afterId, Limit.of(WARMUP_BATCH));
+            for (Long id : ids) activeUsers.add(id);
+            count += ids.size();
+            if (!ids.isEmpty()) afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == WARMUP_BATCH);
+        activeMembersMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Active users initialized: " + count + " in " + activeMembersMillis + " ms");
+
+        restoreWaitLists();
+    }
+
+
+    // Sizes of the in-memory state, read at scrape time without the book locks (registered once)
+    @PostConstruct
+    public void registerGauges() {
+        metrics.gauge("library.members.active", "Members inside the library", activeUsers::size);
+        metrics.gauge("library.waitlist.requests", "Queued requests over all books", memberWaitingBooks::size);
+        metrics.gauge("library.waitlist.depth.max", "Longest waiting list", () -> {
+            int[] max = {0};
+            bookWaitList.forEachValue(waitingQueue -> max[0] = Math.max(max[0], waitingQueue.size()));
+            return max[0];
+        });
+        metrics.gauge("library.durations", "Requested reading durations kept", durationTracker::size);
+        metrics.gauge("library.notifications.books", "Books with members to notify", bookNotificationMembers::size);
+    }
+
+
+    // Rebuild queues and durations from the journal, then load what notifications need
+    private void restoreWaitLists() {
+        if (!journal.isEnabled()) return;
+
+        long start = System.nanoTime();
+        long records = journal.replay(new JournalReplay());
+        journalReplayMillis = (System.nanoTime() - start) / 1_000_000;
+        if (records == 0) return;
+        System.out.println("📒 Replayed " + records + " journal records into " + bookWaitList.size()
+                + " waiting lists in " + journalReplayMillis + " ms");
+
+        // Queued books, loaded in batches (books deleted meanwhile are dropped)
+        start = System.nanoTime();
+        long[] bookIds = bookWaitList.keys();
+        for (int from = 0; from < bookIds.length; from += RESTORE_BATCH) {
+            List<Long> batch = new ArrayList<>(RESTORE_BATCH);
+            for (int i = from; i < Math.min(from + RESTORE_BATCH, bookIds.length); i++) batch.add(bookIds[i]);
+            for (Book b : bookRepository.findAllById(batch)) bookStock.put(b.getId(), new BookStock(b));
+        }
+
+        // Only the members notified right now are loaded before serving requests, the others follow in the background
+        LongIntHashMap queued = new LongIntHashMap();
+        LongIntHashMap candidates = new LongIntHashMap();
+        for (long bookId : bookIds) {
+            BookStock stock = bookStock.get(bookId);
+            if (stock == null) {
+                bookDeleted(bookId);
+                continue;
+            }
+            int notified = 0;
+            for (Long memberId : bookWaitList.get(bookId)) {
+                queued.put(memberId, 1);
+                if (stock.available() > 0 && notified < NOTIFY_LIMIT && activeUsers.contains(memberId)) {
+                    candidates.put(memberId, 1);
+                    notified++;
+                }
+            }
+        }
+        loadWaitingMembers(candidates.keys());
+
+        for (long bookId : bookIds) {
+            if (!bookStock.containsKey(bookId)) continue;
+            Lock lock = getBookLock(bookId);
+            long lockedAt = lockBook(lock, bookId);
+            try {
+                refillNotifications(bookId);
+            } finally {
+                unlockBook(lock, lockedAt);
+            }
+        }
+        System.out.println("Loaded " + bookIds.length + " books and " + candidates.size()
+                + " notified members in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        long[] memberIds = queued.keys();
+        queuedMembersMillis = -1;
+        Thread loader = new Thread(() -> loadQueuedMembers(memberIds), "waitlist-members");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+
+    // Queued members restored from the journal, loaded batch by batch after startup
+    private void loadQueuedMembers(long[] memberIds) {
+        long start = System.nanoTime();
+        try {
+            for (int from = 0; from < memberIds.length && bookWaitList.size() > 0; from += RESTORE_BATCH) {
+                long[] batch = Arrays.copyOfRange(memberIds, from, Math.min(from + RESTORE_BATCH, memberIds.length));
+                Lock day = lockDay();
+                try {
+                    loadWaitingMembers(batch);
+                    refillBooksAwaitingMembers();
+                } finally {
+                    day.unlock();
+                }
+            }
+            System.out.println("Loaded " + memberIds.length + " queued members in the background in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            System.out.println("❌ Loading queued members failed: " + e.getMessage());
+        } finally {
+            queuedMembersMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+
+    /**
+     * Loads members that are still queued into waitingMembers (never under a lock).
+     * Ids with no row were deleted by another node: they no longer count as inside the library,
+     * so the next refill drops them from their queues.
+     */
+    private void loadWaitingMembers(long[] memberIds) {
+        for (int from = 0; from < memberIds.length; from += RESTORE_BATCH) {
+            List<Long> batch = new ArrayList<>(RESTORE_BATCH);
+            for (int i = from; i < Math.min(from + RESTORE_BATCH, memberIds.length); i++) batch.add(memberIds[i]);
+            Set<Long> missing = new HashSet<>(batch);
+            for (Member m : memberRepository.findAllById(batch)) {
+                missing.remove(m.getId());
+                // A member who left meanwhile is not kept, and one who queued again is already there
+                if (memberWaitingBooks.books(m.getId()).length > 0) waitingMembers.putIfAbsent(m.getId(), m);
+            }
+            for (Long memberId : missing) {
+                if (!activeUsers.remove(memberId)) continue;
+                for (long bookId : memberWaitingBooks.books(memberId)) booksAwaitingMembers.put(bookId, Boolean.TRUE);
+            }
+        }
+    }
+
+
+    // Refill the notifications that were waiting for a member to be loaded
+    private void refillBooksAwaitingMembers() {
+        for (long bookId : booksAwaitingMembers.keys()) {
+            booksAwaitingMembers.remove(bookId);
+            Lock lock = getBookLock(bookId);
+            long lockedAt = lockBook(lock, bookId);
+            try {
+                refillNotifications(bookId);
+            } finally {
+                unlockBook(lock, lockedAt);
+            }
+        }
+    }
+
+
+    /**
+     * Applies replayed journal records to the in-memory structures directly
+     * (startup only, nothing is journaled again or published).
+     */
+    private class JournalReplay implements WaitListJournal.Visitor {
+
+        @Override
+        public void enqueue(long bookId, long memberId, int duration) {
+            if (bookWaitList.computeIfAbsent(bookId, k -> new WaitList()).add(memberId)) {
+                memberWaitingBooks.put(memberId, bookId, 1);
+            }
+            durationTracker.put(bookId, memberId, duration);
         }
-        System.out.println("Active users initialized: " + activeUsers);
+
+        @Override
+        public void dequeue(long bookId, long memberId) {
+            removeFromQueue(bookId, memberId);
+            durationTracker.remove(bookId, memberId);
+        }
+
+        @Override
+        public void evict(long bookId, long memberId) {
+            removeFromQueue(bookId, memberId);
+            durationTracker.removeMember(memberId);
+        }
+
+        @Override
+        public void leave(long memberId) {
+            for (long bookId : memberWaitingBooks.books(memberId)) removeFromQueue(bookId, memberId);
+            durationTracker.removeMember(memberId);
+        }
+
+        @Override
+        public void dropBook(long bookId) {
+            WaitList waitingQueue = bookWaitList.remove(bookId);
+            if (waitingQueue == null) return;
+            for (Long memberId : waitingQueue) {
+                memberWaitingBooks.remove(memberId, bookId);
+                durationTracker.remove(bookId, memberId);
+            }
+        }
+
+        private void removeFromQueue(long bookId, long memberId) {
+            WaitList waitingQueue = bookWaitList.get(bookId);
+            if (waitingQueue != null && waitingQueue.remove(memberId) && waitingQueue.isEmpty()) {
+                bookWaitList.remove(bookId);
+            }
+            memberWaitingBooks.remove(memberId, bookId);
+        }
+    }
+
+
+    // Milliseconds the last startup spent loading the active members
+    public long getActiveMembersMillis() {
+        return activeMembersMillis;
     }
 
 
-    // Get or create a lock for a specific book (fine-grained locking)
+    // Milliseconds the last startup spent replaying the journal
+    public long getJournalReplayMillis() {
+        return journalReplayMillis;
+    }
+
+
+    // Milliseconds the background load of queued members took, -1 while it runs
+    public long getQueuedMembersMillis() {
+        return queuedMembersMillis;
+    }
+
+
+    /**
+     * Periodically folds the journal into a snapshot of the current queues,
+     * once enough has been appended since the last one.
+     */
+    @Scheduled(fixedDelayString = "${library.journal.compact-interval-ms:60000}")
+    public void compactJournal() {
+        if (!journal.needsCompaction()) return;
+
+        long start = System.nanoTime();
+        journal.compact(this::writeWaitLists);
+        System.out.println("📒 Journal compacted in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+
+    // Every queue in order with its durations, each book read under its lock
+    private void writeWaitLists(WaitListJournal.SnapshotWriter writer) {
+        for (long bookId : bookWaitList.keys()) {
+            Lock lock = getBookLock(bookId);
+            long lockedAt = lockBook(lock, bookId);
+            try {
+                WaitList waitingQueue = bookWaitList.get(bookId);
+                if (waitingQueue == null) continue;
+                for (Long memberId : waitingQueue) {
+                    writer.enqueue(bookId, memberId, durationTracker.getOrDefault(bookId, memberId, 1));
+                }
+            } finally {
+                unlockBook(lock, lockedAt);
+            }
+        }
+    }
+
+
+    // Get the lock guarding a specific book (fine-grained, bounded locking)
     private Lock getBookLock(Long bookId) {
-        return bookLocks.computeIfAbsent(bookId, k -> new ReentrantLock());
+        return bookLocks.lockFor(bookId);
+    }
+
+
+    // Acquire a book's lock, recording how long we waited if it was contended; returns the time it was taken
+    private long lockBook(Lock lock, long bookId) {
+        if (lock.tryLock()) return System.nanoTime();
+        LibraryEvents.BookLockContended event = new LibraryEvents.BookLockContended();
+        event.begin();
+        long start = System.nanoTime();
+        lock.lock();
+        long lockedAt = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.bookId = bookId;
+            event.commit();
+        }
+        lockWaitNanos.add(lockedAt - start);
+        metrics.lockWaited(lockedAt - start);
+        return lockedAt;
+    }
+
+
+    // Release a book lock taken at lockedAt, recording how long it was held
+    private void unlockBook(Lock lock, long lockedAt) {
+        long held = System.nanoTime() - lockedAt;
+        lockHoldNanos.add(held);
+        metrics.lockHeld(held);
+        lock.unlock();
+    }
+
+
+    // Run work holding the locks of several books, each stripe taken once and in stripe order
+    private void withBookLocks(long[] bookIds, Runnable work) {
+        long[] order = bookLocks.lockOrder(bookIds);
+        Lock[] locks = new Lock[order.length];
+        long[] lockedAt = new long[order.length];
+        int held = 0;
+        try {
+            while (held < order.length) {
+                locks[held] = getBookLock(order[held]);
+                lockedAt[held] = lockBook(locks[held], order[held]);
+                held++;
+            }
+            work.run();
+        } finally {
+            while (held > 0) {
+                held--;
+                unlockBook(locks[held], lockedAt[held]);
+            }
+        }
+    }
+
+
+    // Total nanoseconds spent waiting for contended book locks since startup
+    public long getLockWaitNanos() {
+        return lockWaitNanos.sum();
+    }
+
+
+    // Total nanoseconds book locks were held since startup
+    public long getLockHoldNanos() {
+        return lockHoldNanos.sum();
+    }
+
+
+    // In-memory stock of a book, loaded from the database the first time (never under the lock).
+    // Not from the entity cache: a cached row may predate a copy taken in a transaction not yet committed.
+    private BookStock stockOf(Long bookId) {
+        BookStock stock = bookStock.get(bookId);
+        if (stock != null) return stock;
+
+        BookStock loaded = new BookStock(bookRepository.findById(bookId).orElseThrow());
+        stock = bookStock.putIfAbsent(bookId, loaded);
+        return stock != null ? stock : loaded;
+    }
+
+
+    // Member with pending requests, or from the entity cache (never under the lock)
+    private Member memberOf(Long memberId) {
+        Member member = waitingMembers.get(memberId);
+        return member != null ? member : entityCache.member(memberId).orElseThrow();
     }
 
 
     // Remove all duration entries for this member (cleanup)
     public void removeDurationTrackerByMemberId(Long memberId) {
-        durationTracker.keySet().removeIf(key -> key.getMemberId().equals(memberId));
+        durationTracker.removeMember(memberId);
     }
 
 
     /**
      * Scheduled job running every day at 20:00.
-     * Clears all in-memory structures and resets all members to inactive.
+     * Resets all members to inactive with one UPDATE, then clears all in-memory structures.
+     * Every path that changes the in-memory state holds the day lock shared, so requests
+     * wait for the reset to finish and see either the old day or the new one.
      */
     @Scheduled(cron = "0 0 20 * * *")
     public void resetLibraryMemory() {
         System.out.println("🕗 Clearing in-memory data for new day... " + LocalDateTime.now());
+        long start = System.nanoTime();
+        LibraryEvents.NightlyReset event = new LibraryEvents.NightlyReset();
+        event.begin();
+
+        dayLock.writeLock().lock();
+        try {
+            // Database first: if it fails, memory still matches it
+            int deactivated = memberRepository.deactivateAll();
+            long dbMillis = (System.nanoTime() - start) / 1_000_000;
+
+            int queuedRequests = memberWaitingBooks.size();
+            clearDay();
+
+            System.out.println("🕗 Reset done in " + (System.nanoTime() - start) / 1_000_000 + " ms ("
+                    + deactivated + " members marked inactive in " + dbMillis + " ms)");
+            if (event.shouldCommit()) {
+                event.membersDeactivated = deactivated;
+                event.queuedRequests = queuedRequests;
+                event.commit();
+            }
+        } finally {
+            dayLock.writeLock().unlock();
+        }
+    }
+
 
-        // Clear all cached data
+    // Clear all cached data. Caller holds the day lock exclusively.
+    private void clearDay() {
         activeUsers.clear();
         bookWaitList.clear();
         bookNotificationMembers.clear();
+        bookNotifications.clear();
+        publishNotifications();
+        notificationStream.publish(List.of(NotificationEvent.snapshot(List.of())));
         memberWaitingBooks.clear();
         durationTracker.clear();
-        bookLocks.clear();
+        waitingMembers.clear();
+        booksAwaitingMembers.clear();
+        // Reloaded on first use, which also picks up copy changes made by other nodes
+        bookStock.clear();
+        // Every member was just deactivated
+        entityCache.clear();
+        // Start the journal over from an empty snapshot
+        journal.compact(writer -> {});
+    }
 
-        // Mark all members inactive in DB
-        List<Member> allMembers = memberRepository.findAll();
-        for (Member m : allMembers) {
-            m.setActive(false);
-        }
-        memberRepository.saveAll(allMembers);
+
+    // Take the day lock shared; release it with unlock()
+    private Lock lockDay() {
+        Lock day = dayLock.readLock();
+        day.lock();
+        return day;
     }
 
 
     // Add/remove a book from a member's waiting list helper
     private void updateMemberWaitingBooks(Long memberId, Long bookId, boolean add) {
         if (add) {
-            memberWaitingBooks.computeIfAbsent(memberId, k -> ConcurrentHashMap.newKeySet())
-                    .add(bookId);
+            memberWaitingBooks.put(memberId, bookId, 1);
         } else {
-            Set<Long> books = memberWaitingBooks.get(memberId);
-            if (books != null) {
-                books.remove(bookId);
-                if (books.isEmpty()) {
-                    memberWaitingBooks.remove(memberId);
-                }
+            memberWaitingBooks.remove(memberId, bookId);
+        }
+    }
+
+
+    // The per-book notifications changed: the list served to admin polls is out of date
+    private void publishNotifications() {
+        notificationsVersion.incrementAndGet();
+    }
+
+
+    // Nobody is notified for this book anymore
+    private void clearNotifications(Long bookId) {
+        bookNotificationMembers.remove(bookId);
+        updateBookNotifications(bookId, List.of());
+    }
+
+
+    // Replace the notifications of a book and push what changed to stream subscribers
+    private void updateBookNotifications(Long bookId, List<Notification> notifications) {
+        List<Notification> previous = notifications.isEmpty()
+                ? bookNotifications.remove(bookId)
+                : bookNotifications.put(bookId, notifications);
+        if (previous == null && notifications.isEmpty()) return;
+
+        publishNotifications();
+
+        Map<Long, Notification> before = new HashMap<>();
+        if (previous != null) {
+            for (Notification n : previous) before.put(n.getMember().getId(), n);
+        }
+
+        List<NotificationEvent> events = new ArrayList<>();
+        for (Notification n : notifications) {
+            Notification old = before.remove(n.getMember().getId());
+            if (old == null || old.getDuration() != n.getDuration()) {
+                events.add(NotificationEvent.add(n));
             }
         }
+        for (Long memberId : before.keySet()) {
+            events.add(NotificationEvent.remove(bookId, memberId));
+        }
+        notificationStream.publish(events);
+    }
+
+
+    // Drop an invalid member from a book's queue and their pending requests
+    private void evictFromQueue(Long memberId, Long bookId) {
+        metrics.memberEvicted();
+        journal.evict(bookId, memberId);
+        updateMemberWaitingBooks(memberId, bookId, false);
+        removeDurationTrackerByMemberId(memberId);
     }
 
 
     /**
      * Refresh the top notification candidates for a book.
-     * Keeps only the first NOTIFY_LIMIT active members from the queue.
+     * Keeps only the first NOTIFY_LIMIT active members from the queue
+     * and rebuilds the admin notifications for this book.
+     * Works on in-memory state only, so it is cheap to run under the book lock.
      */
     private void refillNotifications(Long bookId) {
-        LinkedHashSet<Long> waitingQueue = bookWaitList.get(bookId);
+        metrics.notificationsRefilled();
+        LibraryEvents.NotificationRefill event = new LibraryEvents.NotificationRefill();
+        event.begin();
+        refill(bookId, event);
+        if (event.shouldCommit()) {
+            event.bookId = bookId;
+            event.commit();
+        }
+    }
+
+
+    private void refill(Long bookId, LibraryEvents.NotificationRefill event) {
+        WaitList waitingQueue = bookWaitList.get(bookId);
         if (waitingQueue == null || waitingQueue.isEmpty()) {
-            bookNotificationMembers.remove(bookId);
+            clearNotifications(bookId);
             return;
         }
 
-        Book book = bookRepository.findById(bookId).orElse(null);
-        if (book == null) return;
-
         // If no copies are available – we do not notify anyone
-        if (book.getAvailableCopies() == 0) {
-            bookNotificationMembers.remove(bookId);
+        BookStock stock = bookStock.get(bookId);
+        if (stock == null || stock.available() == 0) {
+            clearNotifications(bookId);
             return;
         }
 
-        LinkedHashSet<Long> notifiedMembers = new LinkedHashSet<>();
-        Iterator<Long> iterator = waitingQueue.iterator();
-
         // Take the first NOTIFY_LIMIT valid/active members
-        while (iterator.hasNext() && notifiedMembers.size() < NOTIFY_LIMIT) {
+        List<Notification> notifications = new ArrayList<>(NOTIFY_LIMIT);
+        Book book = null;
+        Iterator<Long> iterator = waitingQueue.iterator();
+        while (iterator.hasNext() && notifications.size() < NOTIFY_LIMIT) {
             Long memberId = iterator.next();
+            Member member = waitingMembers.get(memberId);
+            event.scanned++;
 
-            // Remove invalid members from queue
-            if (!activeUsers.contains(memberId) || !memberRepository.existsById(memberId)) {
+            // Remove members who left the library or were deleted from queue
+            if (!activeUsers.contains(memberId)) {
                 iterator.remove();
-                updateMemberWaitingBooks(memberId, bookId, false);
-                removeDurationTrackerByMemberId(memberId);
+                evictFromQueue(memberId, bookId);
+                event.evicted++;
                 continue;
             }
 
-            notifiedMembers.add(memberId);
+            // Restored from the journal and not loaded yet: the rest is notified once they are
+            if (member == null) {
+                booksAwaitingMembers.put(bookId, Boolean.TRUE);
+                break;
+            }
+
+            // One copy per refill: the stock's Book keeps changing, published notifications must not
+            if (book == null) book = stock.snapshot();
+            notifications.add(new Notification(
+                    book,
+                    member,
+                    durationTracker.getOrDefault(bookId, memberId, 1)
+            ));
         }
 
-        if (notifiedMembers.isEmpty()) {
-            bookNotificationMembers.remove(bookId);
-        } else {
-            bookNotificationMembers.put(bookId, notifiedMembers);
+        if (notifications.isEmpty()) {
+            clearNotifications(bookId);
+            return;
+        }
+
+        long[] candidates = new long[notifications.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = notifications.get(i).getMember().getId();
         }
+        bookNotificationMembers.put(bookId, candidates);
+        updateBookNotifications(bookId, List.copyOf(notifications));
     }
 
 
     // Mark user as inside the library
     public void userEntersLibrary(Long memberId) {
-        activeUsers.add(memberId);
+        Lock day = lockDay();
+        try {
+            activeUsers.add(memberId);
+        } finally {
+            day.unlock();
+        }
+    }
+
+
+    // Member enters or leaves: memory and database change together, never across a reset
+    public Member setMemberActive(Member member, boolean active) {
+        Lock day = lockDay();
+        try {
+            if (active) {
+                userEntersLibrary(member.getId());
+            } else {
+                userLeavesLibrary(member.getId());
+            }
+            member.setActive(active);
+            Member saved = memberRepository.save(member);
+            entityCache.memberChanged(member.getId());
+            return saved;
+        } finally {
+            day.unlock();
+        }
     }
 
 
@@ -183,59 +742,191 @@ public class LibraryService {
      * - Clean up their duration tracker
      */
     public void userLeavesLibrary(Long memberId) {
+        long start = System.nanoTime();
+        Lock day = lockDay();
+        try {
+            leave(memberId);
+        } finally {
+            day.unlock();
+            metrics.userLeavesLibrary(System.nanoTime() - start);
+        }
+    }
+
+
+    private void leave(Long memberId) {
         activeUsers.remove(memberId);
 
-        Set<Long> waitingBooks = memberWaitingBooks.get(memberId);
+        long[] waitingBooks = memberWaitingBooks.books(memberId);
 
-        if (waitingBooks != null) {
-            for (Long bookId : waitingBooks) {
+        if (waitingBooks.length > 0) {
+            journal.leave(memberId);
+
+            for (long bookId : waitingBooks) {
 
                 Lock lock = getBookLock(bookId);
-                lock.lock();
+                long lockedAt = lockBook(lock, bookId);
                 try {
                     // Remove from waiting queue
-                    LinkedHashSet<Long> waitingQueue = bookWaitList.get(bookId);
+                    WaitList waitingQueue = bookWaitList.get(bookId);
                     if (waitingQueue != null) {
                         waitingQueue.remove(memberId);
                         if (waitingQueue.isEmpty()) bookWaitList.remove(bookId);
                     }
 
                     // Remove from notifications
-                    LinkedHashSet<Long> notifiedMembers = bookNotificationMembers.get(bookId);
+                    long[] notifiedMembers = bookNotificationMembers.get(bookId);
                     if (notifiedMembers != null) {
-                        boolean removed = notifiedMembers.remove(memberId);
+                        boolean notified = false;
+                        for (long id : notifiedMembers) notified |= id == memberId;
 
-                        // If removed, refill notifications
-                        if (removed) refillNotifications(bookId);
-                        if (notifiedMembers.isEmpty()) bookNotificationMembers.remove(bookId);
+                        // If notified, refill notifications without them (clears them when nobody is left)
+                        if (notified) refillNotifications(bookId);
                     }
                 } finally {
-                    lock.unlock();
+                    unlockBook(lock, lockedAt);
                 }
             }
 
-            memberWaitingBooks.remove(memberId);
+            memberWaitingBooks.removeMember(memberId);
         }
 
         removeDurationTrackerByMemberId(memberId);
+        waitingMembers.remove(memberId);
+    }
+
+
+    // A member was deleted: drop them from every queue and notification
+    public void memberDeleted(Long memberId) {
+        entityCache.memberChanged(memberId);
+        userLeavesLibrary(memberId);
+    }
+
+
+    // A member was edited: later notifications show the new details
+    public void memberChanged(Member member) {
+        entityCache.memberChanged(member.getId());
+        Lock day = lockDay();
+        try {
+            if (waitingMembers.containsKey(member.getId())) {
+                waitingMembers.put(member.getId(), member);
+            }
+        } finally {
+            day.unlock();
+        }
     }
 
 
     /**
-     * Creates and saves a ReadingActivity and decreases book copies.
+     * Re-read a book's copies from the database after it was changed outside this service
+     * (admin edit, another node) and refresh its notifications.
      */
-    @Transactional
-    private void startReadingActivity(Member member, Book book, Duration duration) {
+    public void bookChanged(Long bookId) {
+        entityCache.bookChanged(bookId);
+        Book book = bookRepository.findById(bookId).orElse(null);
+        if (book == null) {
+            bookDeleted(bookId);
+            return;
+        }
+
+        Lock day = lockDay();
+        Lock lock = getBookLock(bookId);
+        long lockedAt = lockBook(lock, bookId);
+        try {
+            BookStock stock = bookStock.get(bookId);
+            if (stock == null) {
+                bookStock.put(bookId, new BookStock(book));
+            } else {
+                stock.reset(book);
+            }
+            refillNotifications(bookId);
+        } finally {
+            unlockBook(lock, lockedAt);
+            day.unlock();
+        }
+    }
+
+
+    // A book was deleted: forget its stock and waiting list
+    public void bookDeleted(Long bookId) {
+        entityCache.bookChanged(bookId);
+        Lock day = lockDay();
+        Lock lock = getBookLock(bookId);
+        long lockedAt = lockBook(lock, bookId);
+        try {
+            bookStock.remove(bookId);
+            WaitList waitingQueue = bookWaitList.remove(bookId);
+            if (waitingQueue != null) {
+                journal.dropBook(bookId);
+                for (Long memberId : waitingQueue) {
+                    updateMemberWaitingBooks(memberId, bookId, false);
+                    durationTracker.remove(bookId, memberId);
+                }
+            }
+            clearNotifications(bookId);
+        } finally {
+            unlockBook(lock, lockedAt);
+            day.unlock();
+        }
+    }
+
+
+    /**
+     * Persists a loan reserved in memory: takes the copy with a conditional UPDATE and,
+     * if one was left, saves the ReadingActivity. Called after the book lock is released.
+     * The database decides, so copies are never over-lent even with several backend nodes.
+     * Returns false when another node took the last copy first.
+     */
+    private boolean startReadingActivity(Long memberId, Long bookId, Duration duration) {
+        boolean taken = bookRepository.decrementAvailableCopies(bookId) == 1;
+        // Cached copies are stale either way: one was taken here, or none was left
+        entityCache.bookChanged(bookId);
+        if (!taken) {
+            return false;
+        }
+
         ReadingActivity activity = new ReadingActivity(
-                book,
-                member,
+                bookRepository.getReferenceById(bookId),
+                memberRepository.getReferenceById(memberId),
                 LocalDateTime.now(),
                 LocalDateTime.now().plus(duration)
         );
-
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
         readingActivityRepository.save(activity);
+        overdueLoans.loanStarted(activity.getId(), activity.getExpectedEndTime());
+        return true;
+    }
+
+
+    // The database had fewer copies than we thought: take its count (never under the lock)
+    private void resyncStock(Long bookId) {
+        entityCache.bookChanged(bookId);
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        Lock lock = getBookLock(bookId);
+        long lockedAt = lockBook(lock, bookId);
+        try {
+            stockOf(bookId).reset(book);
+            refillNotifications(bookId);
+        } finally {
+            unlockBook(lock, lockedAt);
+        }
+    }
+
+
+    // Put a member at the end of a book's waiting list; returns their rank. Caller holds the book lock.
+    private long enqueue(WaitList waitingQueue, Member member, Long bookId, int duration) {
+        Long memberId = member.getId();
+        waitingMembers.put(memberId, member);
+        if (waitingQueue.add(memberId)) {
+            updateMemberWaitingBooks(memberId, bookId, true);
+        }
+
+        durationTracker.put(bookId, memberId, duration);
+        journal.enqueue(bookId, memberId, duration);
+
+        // Update admin notifications
+        refillNotifications(bookId);
+
+        // Rank in queue (O(log n), no scan)
+        return waitingQueue.rank(memberId);
     }
 
 
@@ -244,9 +935,65 @@ public class LibraryService {
      * 1. If available → assign immediately.
      * 2. If not available → place in waiting queue.
      * 3. Compute the queue rank.
+     * The decision is taken on in-memory state under the book lock; the loan is saved after it.
      */
     @Transactional
     public BookBorrowResponse requestBook(Long memberId, Long bookId, int duration) {
+        long start = System.nanoTime();
+        LibraryEvents.BorrowRequest event = new LibraryEvents.BorrowRequest();
+        event.begin();
+        Lock day = lockDay();
+        try {
+            return borrowOrQueue(memberId, bookId, duration, event);
+        } finally {
+            day.unlock();
+            metrics.requestBook(System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.memberId = memberId;
+                event.bookId = bookId;
+                event.hours = duration;
+                event.commit();
+            }
+        }
+    }
+
+
+    private BookBorrowResponse borrowOrQueue(Long memberId, Long bookId, int duration,
+                                             LibraryEvents.BorrowRequest event) {
+        BookBorrowResponse refused = checkBorrower(memberId, bookId);
+        if (refused != null) {
+            event.outcome = "refused";
+            return refused;
+        }
+
+        // Everything the decision needs is loaded before taking the lock
+        BookStock stock = stockOf(bookId);
+        PendingBorrow borrow = new PendingBorrow(memberOf(memberId), bookId, duration);
+        borrow.register();
+
+        BookBorrowResponse queued;
+        Lock lock = getBookLock(bookId);
+        long lockedAt = lockBook(lock, bookId);
+        try {
+            queued = reserveOrQueue(borrow, stock);
+        } finally {
+            unlockBook(lock, lockedAt);
+        }
+
+        BookBorrowResponse response = queued != null ? queued : startLoan(borrow, stock);
+        outcome(event, response);
+        return response;
+    }
+
+
+    private static void outcome(LibraryEvents.BorrowRequest event, BookBorrowResponse response) {
+        event.outcome = response.isSuccess() ? "assigned" : "queued";
+        event.rank = response.getRank() != null ? response.getRank() : 0;
+    }
+
+
+    // Why a member cannot borrow a book right now, or null if they can try
+    private BookBorrowResponse checkBorrower(Long memberId, Long bookId) {
 
         // Member must be inside library
         if (!activeUsers.contains(memberId)) {
@@ -257,74 +1004,252 @@ public class LibraryService {
         if (readingActivityRepository.existsByMemberIdAndBookIdAndIsActiveTrue(memberId, bookId)) {
             return new BookBorrowResponse(true, "You have already borrowed the book");
         }
+        return null;
+    }
 
-        Book book = bookRepository.findById(bookId).orElseThrow();
-        Member member = memberRepository.findById(memberId).orElseThrow();
 
-        Lock lock = getBookLock(bookId);
-        lock.lock();
-        try {
-            LinkedHashSet<Long> waitingQueue =
-                    bookWaitList.computeIfAbsent(bookId, k -> new LinkedHashSet<>());
+    /**
+     * A borrow decided in memory and saved later in the same transaction.
+     * Records what the decision changed, so a rollback can put back the reserved copy
+     * and the member's place in the waiting lists.
+     */
+    private final class PendingBorrow implements TransactionSynchronization {
+        private final Member member;
+        private final Long bookId;
+        private final int duration;
+
+        // A copy was taken from the stock and the database has not refused it
+        private boolean reserved;
+        // The member was waiting for the book and left the queue with the reserved copy
+        private boolean leftQueue;
+        // The member was not waiting for the book and was put in the queue
+        private boolean joinedQueue;
+
+        private PendingBorrow(Member member, Long bookId, int duration) {
+            this.member = member;
+            this.bookId = bookId;
+            this.duration = duration;
+        }
 
-            Long firstInQueue = waitingQueue.isEmpty() ? null : waitingQueue.iterator().next();
-            String message = "";
+        private void register() {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(this);
+            }
+        }
+
+        // Put the member in line and return their rank. Caller holds the book lock.
+        private long enqueue(WaitList waitingQueue) {
+            joinedQueue |= !waitingQueue.contains(member.getId());
+            return LibraryService.this.enqueue(waitingQueue, member, bookId, duration);
+        }
 
-            // If another user is first in queue
-            if (firstInQueue != null && !firstInQueue.equals(memberId)) {
-                message = "Someone else requested this book first, you'll get your turn soon!";
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK || !(reserved || leftQueue || joinedQueue)) return;
+
+            Long memberId = member.getId();
+            Lock day = lockDay();
+            Lock lock = getBookLock(bookId);
+            long lockedAt = lockBook(lock, bookId);
+            try {
+                // Nothing to put back if the nightly reset ran meanwhile
+                BookStock stock = bookStock.get(bookId);
+                if (reserved && stock != null) stock.giveBack();
+
+                if (joinedQueue && !leftQueue) {
+                    WaitList waitingQueue = bookWaitList.get(bookId);
+                    if (waitingQueue != null && waitingQueue.remove(memberId)) {
+                        journal.dequeue(bookId, memberId);
+                        if (waitingQueue.isEmpty()) bookWaitList.remove(bookId);
+                    }
+                    updateMemberWaitingBooks(memberId, bookId, false);
+                    durationTracker.remove(bookId, memberId);
+                } else if (leftQueue && !joinedQueue && activeUsers.contains(memberId)) {
+                    // Back in line at the end: a waiting list only grows at its tail
+                    LibraryService.this.enqueue(bookWaitList.computeIfAbsent(bookId, k -> new WaitList()),
+                            member, bookId, duration);
+                }
+                refillNotifications(bookId);
+            } finally {
+                unlockBook(lock, lockedAt);
+                day.unlock();
             }
-            // If user is first OR queue empty AND book available
-            else if (book.getAvailableCopies() > 0) {
-                // Remove from queue if present
-                waitingQueue.remove(memberId);
-                updateMemberWaitingBooks(memberId, bookId, false);
+        }
+    }
 
-                durationTracker.remove(new BookMemberDTO(bookId, memberId));
 
-                // Assign the book
-                startReadingActivity(member, book, Duration.ofHours(duration));
-                return new BookBorrowResponse(true,
-                        "Book " + book.getTitle() + " assigned successfully to " + member.getName());
+    /**
+     * Reserves a copy for the member if they are first in line (or nobody waits) and one is left,
+     * otherwise puts them in the waiting list. Returns null when a copy was reserved,
+     * else the waiting-list response. Caller holds the book lock.
+     */
+    private BookBorrowResponse reserveOrQueue(PendingBorrow borrow, BookStock stock) {
+        Long memberId = borrow.member.getId();
+        Long bookId = borrow.bookId;
+        WaitList waitingQueue = bookWaitList.computeIfAbsent(bookId, k -> new WaitList());
+
+        long firstInQueue = waitingQueue.first();
+
+        // If another user is first in queue
+        if (firstInQueue != WaitList.NONE && firstInQueue != memberId) {
+            return waitingResponse("Someone else requested this book first, you'll get your turn soon!",
+                    borrow.enqueue(waitingQueue));
+        }
+
+        // If user is first OR queue empty: reserve a copy if one is left
+        if (stock.take()) {
+            borrow.reserved = true;
+
+            // Remove from queue if present
+            if (waitingQueue.remove(memberId)) {
+                journal.dequeue(bookId, memberId);
+                borrow.leftQueue = true;
             }
+            updateMemberWaitingBooks(memberId, bookId, false);
+
+            durationTracker.remove(bookId, memberId);
+
+            // Copies changed: refresh what the admin sees for this book
+            if (bookNotificationMembers.containsKey(bookId)) refillNotifications(bookId);
+            return null;
+        }
+
+        // Otherwise: book unavailable → add to waiting list
+        return waitingResponse("", borrow.enqueue(waitingQueue));
+    }
+
+
+    // Save a loan reserved in memory (after the book lock is released)
+    private BookBorrowResponse startLoan(PendingBorrow borrow, BookStock stock) {
+        Member member = borrow.member;
+        Long bookId = borrow.bookId;
+
+        // Assign the book
+        if (startReadingActivity(member.getId(), bookId, Duration.ofHours(borrow.duration))) {
+            return new BookBorrowResponse(true,
+                    "Book " + stock.book().getTitle() + " assigned successfully to " + member.getName());
+        }
 
-            // Otherwise: book unavailable → add to waiting list
-            if (!waitingQueue.contains(memberId)) {
-                waitingQueue.add(memberId);
-                updateMemberWaitingBooks(memberId, bookId, true);
+        // Another node took the last copy: use the database count and wait in line
+        resyncStock(bookId);
+        borrow.reserved = false;
+        long rank;
+        Lock lock = getBookLock(bookId);
+        long lockedAt = lockBook(lock, bookId);
+        try {
+            rank = borrow.enqueue(bookWaitList.computeIfAbsent(bookId, k -> new WaitList()));
+        } finally {
+            unlockBook(lock, lockedAt);
+        }
+        return waitingResponse("", rank);
+    }
+
+
+    private static BookBorrowResponse waitingResponse(String message, long rank) {
+        return new BookBorrowResponse(
+                false,
+                "Book not available. " + message + " You are in waiting list.",
+                rank
+        );
+    }
+
+
+    /**
+     * Several borrow requests in one transaction, answered in request order.
+     * The locks of all requested books are held together while deciding, taken in stripe
+     * order; requests for the same book are decided in the order they were sent.
+     * Loans are saved after the locks are released, by book id, so concurrent batches take
+     * the database row locks in the same order too and never deadlock. If the transaction
+     * rolls back, the copies reserved and the queue changes are undone in memory as well.
+     */
+    @Transactional
+    public List<BookBorrowResponse> requestBooks(List<BorrowRequest> requests) {
+        long start = System.nanoTime();
+        LibraryEvents.BorrowRequest[] events = new LibraryEvents.BorrowRequest[requests.size()];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new LibraryEvents.BorrowRequest();
+            events[i].begin();
+        }
+        Lock day = lockDay();
+        try {
+            return borrowAll(requests, events);
+        } finally {
+            day.unlock();
+            metrics.requestBooks(System.nanoTime() - start);
+            for (int i = 0; i < events.length; i++) {
+                if (events[i].shouldCommit()) {
+                    BorrowRequest request = requests.get(i);
+                    events[i].memberId = request.memberId();
+                    events[i].bookId = request.bookId();
+                    events[i].hours = request.duration();
+                    events[i].commit();
+                }
             }
+        }
+    }
 
-            durationTracker.put(new BookMemberDTO(bookId, memberId), duration);
 
-            // Calculate rank in queue
-            long rank = 1;
-            for (Long id : waitingQueue) {
-                if (id.equals(memberId)) break;
-                rank++;
+    private List<BookBorrowResponse> borrowAll(List<BorrowRequest> requests, LibraryEvents.BorrowRequest[] events) {
+        int n = requests.size();
+        BookBorrowResponse[] responses = new BookBorrowResponse[n];
+        PendingBorrow[] borrows = new PendingBorrow[n];
+        BookStock[] stocks = new BookStock[n];
+        Set<List<Long>> seen = new HashSet<>();
+        long[] bookIds = new long[n];
+        int pending = 0;
+
+        for (int i = 0; i < n; i++) {
+            BorrowRequest request = requests.get(i);
+            events[i].outcome = "refused";
+            if (!seen.add(List.of(request.memberId(), request.bookId()))) {
+                responses[i] = new BookBorrowResponse(false, "Duplicate request in this batch");
+                continue;
+            }
+            responses[i] = checkBorrower(request.memberId(), request.bookId());
+            if (responses[i] != null) continue;
+
+            try {
+                stocks[i] = stockOf(request.bookId());
+                borrows[i] = new PendingBorrow(memberOf(request.memberId()), request.bookId(), request.duration());
+            } catch (NoSuchElementException e) {
+                responses[i] = new BookBorrowResponse(false, "Book or member not found");
+                continue;
             }
+            borrows[i].register();
+            bookIds[pending++] = request.bookId();
+        }
 
-            // Update admin notifications
-            refillNotifications(bookId);
+        withBookLocks(Arrays.copyOf(bookIds, pending), () -> {
+            for (int i = 0; i < n; i++) {
+                if (responses[i] == null) responses[i] = reserveOrQueue(borrows[i], stocks[i]);
+            }
+        });
 
-            return new BookBorrowResponse(
-                    false,
-                    "Book not available. " + message + " You are in waiting list.",
-                    rank
-            );
-        } finally {
-            lock.unlock();
+        // Reserved loans saved by book id (the sort is stable, so one book keeps the request order)
+        List<Integer> reserved = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (responses[i] == null) reserved.add(i);
+        }
+        reserved.sort(Comparator.comparingLong(i -> requests.get(i).bookId()));
+        for (int i : reserved) responses[i] = startLoan(borrows[i], stocks[i]);
+
+        for (int i = 0; i < n; i++) {
+            if (borrows[i] != null) outcome(events[i], responses[i]);
         }
+        return Arrays.asList(responses);
     }
 
 
-    // Helper to refresh notifications with locking
-    private void checkWaitingQueue(Long bookId) {
+    // Helper to put a returned copy back in stock and refresh notifications with locking
+    private void checkWaitingQueue(Long bookId, boolean copyReturned) {
         Lock lock = getBookLock(bookId);
-        lock.lock();
+        long lockedAt = lockBook(lock, bookId);
         try {
+            BookStock stock = bookStock.get(bookId);
+            if (stock != null && copyReturned) stock.giveBack();
             refillNotifications(bookId);
         } finally {
-            lock.unlock();
+            unlockBook(lock, lockedAt);
         }
     }
 
@@ -337,18 +1262,123 @@ public class LibraryService {
      */
     @Transactional
     public void returnBook(Long readingActivityId) {
-        ReadingActivity activity = readingActivityRepository.findById(readingActivityId).orElse(null);
+        long start = System.nanoTime();
+        Lock day = lockDay();
+        try {
+            ReadingActivity activity = readingActivityRepository.findById(readingActivityId).orElse(null);
+
+            // Only the caller that actually ends the loan gives the copy back
+            if (activity != null && activity.getActive()
+                    && readingActivityRepository.deactivate(readingActivityId) == 1) {
 
-        if (activity != null && activity.getActive()) {
-            activity.setActive(false);
-            readingActivityRepository.save(activity);
+                Long bookId = activity.getBook().getId();
+                boolean copyReturned = bookRepository.incrementAvailableCopies(bookId) == 1;
+                entityCache.bookChanged(bookId);
 
-            Book book = activity.getBook();
-            book.setAvailableCopies(book.getAvailableCopies() + 1);
-            bookRepository.save(book);
+                // Notify next eligible readers
+                checkWaitingQueue(bookId, copyReturned);
+            }
 
-            // Notify next eligible readers
-            checkWaitingQueue(book.getId());
+            // Ended now or before (possibly on another node): no longer due
+            overdueLoans.loanEnded(readingActivityId);
+        } finally {
+            day.unlock();
+            metrics.returnBook(System.nanoTime() - start);
+        }
+    }
+
+
+    /**
+     * Several returns in one transaction, answered in request order.
+     * Copies go back with one UPDATE per book, and the locks of all returned books are
+     * taken once (in stripe order) to put them back in stock and refresh notifications.
+     */
+    @Transactional
+    public List<BookBorrowResponse> returnBooks(List<Long> readingActivityIds) {
+        long start = System.nanoTime();
+        Lock day = lockDay();
+        try {
+            return returnAll(readingActivityIds);
+        } finally {
+            day.unlock();
+            metrics.returnBooks(System.nanoTime() - start);
+        }
+    }
+
+
+    private List<BookBorrowResponse> returnAll(List<Long> readingActivityIds) {
+        // Book of each loan still active, read in one query
+        Map<Long, Long> bookOfLoan = new HashMap<>();
+        for (ReadingActivity activity : readingActivityRepository.findAllById(readingActivityIds)) {
+            if (activity.getActive()) bookOfLoan.put(activity.getId(), activity.getBook().getId());
+        }
+
+        // Only the caller that actually ends a loan gives its copy back.
+        // Rows are updated by id, loans then books, so concurrent carts lock them in the same order.
+        int n = readingActivityIds.size();
+        BookBorrowResponse[] responses = new BookBorrowResponse[n];
+        List<Integer> byLoan = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) byLoan.add(i);
+        byLoan.sort(Comparator.comparing(readingActivityIds::get));
+        LongIntHashMap returned = new LongIntHashMap();
+        for (int i : byLoan) {
+            Long activityId = readingActivityIds.get(i);
+            Long bookId = bookOfLoan.get(activityId);
+            if (bookId != null && readingActivityRepository.deactivate(activityId) == 1) {
+                returned.put(bookId, returned.get(bookId, 0) + 1);
+                responses[i] = new BookBorrowResponse(true, "book returned successfully");
+            } else {
+                responses[i] = new BookBorrowResponse(false, "Loan " + activityId + " is not active");
+            }
+        }
+
+        long[] bookIds = returned.keys();
+        Arrays.sort(bookIds);
+        for (long bookId : bookIds) {
+            if (bookRepository.returnCopies(bookId, returned.get(bookId, 0)) == 0) returned.put(bookId, 0);
+            entityCache.bookChanged(bookId);
+        }
+
+        // Notify next eligible readers
+        withBookLocks(bookIds, () -> {
+            for (long bookId : bookIds) {
+                BookStock stock = bookStock.get(bookId);
+                if (stock != null) {
+                    for (int i = returned.get(bookId, 0); i > 0; i--) stock.giveBack();
+                }
+                refillNotifications(bookId);
+            }
+        });
+
+        for (Long activityId : readingActivityIds) overdueLoans.loanEnded(activityId);
+        return Arrays.asList(responses);
+    }
+
+
+    /**
+     * Runs every tick of the loan timing wheel.
+     * Loans that fell due are returned when auto-return is on, otherwise listed as overdue.
+     */
+    @Scheduled(fixedDelayString = "${library.loans.tick-ms:1000}")
+    public void expireLoans() {
+        List<Long> due = overdueLoans.advance(System.currentTimeMillis());
+        if (due.isEmpty()) return;
+
+        if (autoReturnOverdue) {
+            List<Long> failed = new ArrayList<>();
+            for (Long activityId : due) {
+                try {
+                    transaction.executeWithoutResult(status -> returnBook(activityId));
+                } catch (RuntimeException e) {
+                    // Rolled back as a whole: the loan is still open, list it as overdue instead
+                    System.out.println("❌ Returning overdue loan " + activityId + " failed: " + e.getMessage());
+                    failed.add(activityId);
+                }
+            }
+            if (!failed.isEmpty()) overdueLoans.markOverdue(failed);
+            System.out.println("⏰ Returned " + (due.size() - failed.size()) + " overdue loans");
+        } else {
+            overdueLoans.markOverdue(due);
         }
     }
 
@@ -356,60 +1386,94 @@ public class LibraryService {
     /**
      * Admin approves next reader manually.
      * This assigns the book to a specific member from the queue.
+     * The copy is reserved in memory under the book lock; the loan is saved after it.
      */
     @Transactional
     public BookBorrowResponse approveNextReader(Long bookId, Long memberId) {
+        long start = System.nanoTime();
+        Lock day = lockDay();
+        try {
+            return approve(bookId, memberId);
+        } finally {
+            day.unlock();
+            metrics.approveNextReader(System.nanoTime() - start);
+        }
+    }
+
+
+    private BookBorrowResponse approve(Long bookId, Long memberId) {
+
+        BookStock stock = stockOf(bookId);
+        Member member = null;
+        int duration = 1;
 
         Lock lock = getBookLock(bookId);
-        lock.lock();
+        long lockedAt = lockBook(lock, bookId);
 
         try {
-            LinkedHashSet<Long> waitingQueue = bookWaitList.get(bookId);
-            Book book = bookRepository.findById(bookId).orElseThrow();
+            WaitList waitingQueue = bookWaitList.get(bookId);
 
             if (waitingQueue != null && !waitingQueue.isEmpty()) {
 
                 // Must be active and in queue
                 if (waitingQueue.contains(memberId) && activeUsers.contains(memberId)) {
 
-                    Member member = memberRepository.findById(memberId).orElseThrow();
-
                     // Only assign if available
-                    if (book.getAvailableCopies() > 0) {
-
-                        long duration = durationTracker.getOrDefault(
-                                new BookMemberDTO(bookId, memberId), 1);
-
-                        startReadingActivity(member, book, Duration.ofHours(duration));
+                    Member candidate = waitingMembers.get(memberId);
+                    if (candidate != null && stock.take()) {
+                        member = candidate;
+                        duration = durationTracker.getOrDefault(bookId, memberId, 1);
 
                         waitingQueue.remove(memberId);
                         updateMemberWaitingBooks(memberId, bookId, false);
+                        journal.dequeue(bookId, memberId);
 
-                        // Remove from notification list
-                        LinkedHashSet<Long> notifiedMembers = bookNotificationMembers.get(bookId);
-                        if (notifiedMembers != null) notifiedMembers.remove(memberId);
-
-                        durationTracker.remove(new BookMemberDTO(bookId, memberId));
+                        durationTracker.remove(bookId, memberId);
 
-                        // If no copies left, clear notifications
-                        if (book.getAvailableCopies() == 0) {
-                            bookNotificationMembers.remove(bookId);
-                        } else {
-                            refillNotifications(bookId);
-                        }
+                        // Rebuild notifications without this member (cleared if no copies are left)
+                        refillNotifications(bookId);
 
                         if (waitingQueue.isEmpty()) bookWaitList.remove(bookId);
-
-                        return new BookBorrowResponse(true,
-                                "Book " + book.getTitle() + " assigned successfully to " + member.getName());
                     }
                 }
             }
+        } finally {
+            unlockBook(lock, lockedAt);
+        }
 
-            return new BookBorrowResponse(false,
-                    "No available candidates for the Book " + book.getTitle());
+        if (member != null) {
+            if (startReadingActivity(memberId, bookId, Duration.ofHours(duration))) {
+                return new BookBorrowResponse(true,
+                        "Book " + stock.book().getTitle() + " assigned successfully to " + member.getName());
+            }
+
+            // Another node took the last copy: use the database count and put the member back in line
+            resyncStock(bookId);
+            lockedAt = lockBook(lock, bookId);
+            try {
+                enqueue(bookWaitList.computeIfAbsent(bookId, k -> new WaitList()), member, bookId, duration);
+            } finally {
+                unlockBook(lock, lockedAt);
+            }
+        }
+
+        return new BookBorrowResponse(false,
+                "No available candidates for the Book " + stock.book().getTitle());
+    }
+
+
+    /**
+     * Position of a member in a book's waiting list (1 = next in line),
+     * or 0 if they are not waiting for it.
+     */
+    public long getQueueRank(Long memberId, Long bookId) {
+        Lock lock = getBookLock(bookId);
+        long lockedAt = lockBook(lock, bookId);
+        try {
+            WaitList waitingQueue = bookWaitList.get(bookId);
+            return waitingQueue == null ? 0 : waitingQueue.rank(memberId);
         } finally {
-            lock.unlock();
+            unlockBook(lock, lockedAt);
         }
     }
 
@@ -417,32 +1481,20 @@ public class LibraryService {
     /**
      * Returns the list of admin notifications.
      * Always limited to NOTIFY_LIMIT per book.
+     * The notifications are precomputed by refillNotifications, so a poll never touches the database;
+     * the flattened list is rebuilt at most once per change, by the first poll that sees it.
      */
     public List<Notification> getAdminNotifications() {
-        List<Notification> notifications = new ArrayList<>();
-
-        for (Map.Entry<Long, LinkedHashSet<Long>> entry : bookNotificationMembers.entrySet()) {
-
-            Long bookId = entry.getKey();
-            Book book = bookRepository.findById(bookId).orElse(null);
-            if (book == null) continue;
-
-            LinkedHashSet<Long> notifiedMembers = entry.getValue();
-
-            for (Long memberId : notifiedMembers) {
-                Member member = memberRepository.findById(memberId).orElse(null);
-
-                if (member != null && activeUsers.contains(memberId)) {
-                    notifications.add(new Notification(
-                            book,
-                            member,
-                            durationTracker.getOrDefault(new BookMemberDTO(bookId, memberId), 1)
-                    ));
-                }
-            }
-        }
-
-        return notifications;
+        NotificationSnapshot snapshot = notificationSnapshot;
+        // Read the version before the map: the rebuilt list holds at least every change up to it
+        long version = notificationsVersion.get();
+        if (snapshot.version() == version) return snapshot.notifications();
+
+        List<Notification> all = new ArrayList<>();
+        bookNotifications.forEachValue(all::addAll);
+        snapshot = new NotificationSnapshot(version, Collections.unmodifiableList(all));
+        notificationSnapshot = snapshot;
+        return snapshot.notifications();
     }
 
 }
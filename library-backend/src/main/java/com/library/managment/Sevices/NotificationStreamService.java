@@ -0,0 +1,151 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.dto.NotificationEvent;
+import com.library.managment.model.Notification;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Pushes admin notification changes to Server-Sent Events subscribers.
+ *
+ * Publishing never blocks: each subscriber has a bounded buffer drained by a small
+ * shared pool of sender threads. A subscriber that falls a full buffer behind
+ * (a stale tab, a stalled connection) is dropped; the browser's EventSource
+ * reconnects and starts again from a fresh snapshot.
+ */
+@Service
+public class NotificationStreamService {
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public NotificationStreamService(
+            @Value("${library.notifications.stream.buffer-size:256}") int bufferSize,
+            @Value("${library.notifications.stream.timeout-minutes:30}") long timeoutMinutes,
+            @Value("${library.notifications.stream.sender-threads:2}") int senderThreads) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "notification-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Registers a new subscriber. Events published from now on are buffered for it,
+     * and the current notifications (read after registering) are sent first.
+     */
+    public SseEmitter subscribe(Supplier<List<Notification>> currentNotifications) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> drop(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // Nothing is sent before the snapshot: hold the drain until it is queued
+        subscriber.draining.set(true);
+        subscribers.add(subscriber);
+
+        // Changes published meanwhile are already contained in the snapshot; replaying them is harmless
+        if (!subscriber.buffer.offerFirst(NotificationEvent.snapshot(currentNotifications.get()))) {
+            // A full buffer of changes arrived first: drop it like a slow subscriber, the client reconnects
+            drop(subscriber);
+            return emitter;
+        }
+        subscriber.draining.set(false);
+        schedule(subscriber);
+        return emitter;
+    }
+
+
+    // Queue events for every subscriber, dropping those whose buffer is full
+    public void publish(List<NotificationEvent> events) {
+        if (events.isEmpty() || subscribers.isEmpty()) return;
+
+        for (Subscriber subscriber : subscribers) {
+            for (NotificationEvent event : events) {
+                if (!subscriber.buffer.offerLast(event)) {
+                    drop(subscriber);
+                    break;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.buffer.clear();
+            senders.execute(subscriber.emitter::complete);
+        }
+    }
+
+
+    // Make sure one sender drains this subscriber's buffer (never two at once, to keep order)
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+
+    private void drain(Subscriber subscriber) {
+        try {
+            NotificationEvent event;
+            while ((event = subscriber.buffer.pollFirst()) != null) {
+                subscriber.emitter.send(SseEmitter.event().name(event.getType()).data(event));
+            }
+        } catch (Exception e) {
+            // Client went away: the emitter reports the error and removes the subscriber
+            subscribers.remove(subscriber);
+            subscriber.buffer.clear();
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        // An event may have arrived after the last poll but before draining was reset
+        if (!subscriber.buffer.isEmpty() && subscribers.contains(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingDeque<NotificationEvent> buffer = new LinkedBlockingDeque<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
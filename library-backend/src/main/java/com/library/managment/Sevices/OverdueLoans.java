@@ -0,0 +1,144 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.dto.ActivityView;
+import com.library.managment.repository.ReadingActivityRepository;
+import com.library.managment.repository.ReadingActivityRepository.LoanDeadline;
+import com.library.managment.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Open loans on a timing wheel, so overdue loans are known without querying for them.
+ *
+ * Every active ReadingActivity (id and due time only) is put on the wheel at startup;
+ * LibraryService adds the loans it starts and removes the ones it ends. When a due time
+ * passes, advance() takes the loan off the wheel and lists it as overdue; markOverdue()
+ * then reads its ActivityView once, so the expired list is served from memory in O(overdue).
+ *
+ * Loans started or returned through another backend node are picked up at the next start.
+ */
+@Service
+public class OverdueLoans {
+
+    // Activities loaded per query when new loans fall due
+    private static final int LOAD_BATCH = 1000;
+
+    @Autowired
+    private ReadingActivityRepository readingActivityRepository;
+
+    // Due times of open loans (activityId), guarded by itself
+    private final TimingWheel wheel;
+
+    // Loans past their due time in the order they fell due (activityId -> activity, null until loaded),
+    // guarded by itself
+    private final LinkedHashMap<Long, ActivityView> overdue = new LinkedHashMap<>();
+
+
+    public OverdueLoans(@Value("${library.loans.tick-ms:1000}") long tickMillis) {
+        this.wheel = new TimingWheel(tickMillis, System.currentTimeMillis());
+    }
+
+
+    // Runs once at application start: put every open loan on the wheel
+    @PostConstruct
+    public void loadOpenLoans() {
+        long start = System.nanoTime();
+        List<LoanDeadline> loans = readingActivityRepository.findActiveDeadlines();
+        synchronized (wheel) {
+            for (LoanDeadline loan : loans) {
+                if (loan.getExpectedEndTime() != null) {
+                    wheel.schedule(loan.getId(), toMillis(loan.getExpectedEndTime()));
+                }
+            }
+        }
+        System.out.println("⏰ Scheduled " + loans.size() + " open loans in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+
+    public void loanStarted(long activityId, LocalDateTime expectedEndTime) {
+        synchronized (wheel) {
+            wheel.schedule(activityId, toMillis(expectedEndTime));
+        }
+    }
+
+
+    public void loanEnded(long activityId) {
+        synchronized (wheel) {
+            wheel.cancel(activityId);
+        }
+        synchronized (overdue) {
+            overdue.remove(activityId);
+        }
+    }
+
+
+    // Take the loans due by nowMillis off the wheel and list them as overdue; returns their ids
+    public List<Long> advance(long nowMillis) {
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(nowMillis, due::add);
+        }
+        if (!due.isEmpty()) {
+            synchronized (overdue) {
+                for (Long id : due) overdue.put(id, null);
+            }
+        }
+        return due;
+    }
+
+
+    // Load overdue loans for the list; loans ended meanwhile (here or elsewhere) are dropped
+    public void markOverdue(List<Long> activityIds) {
+        for (int from = 0; from < activityIds.size(); from += LOAD_BATCH) {
+            List<Long> batch = activityIds.subList(from, Math.min(from + LOAD_BATCH, activityIds.size()));
+            Map<Long, ActivityView> open = new HashMap<>();
+            for (ActivityView activity : readingActivityRepository.findActiveViewsByIds(batch)) {
+                open.put(activity.id(), activity);
+            }
+
+            synchronized (overdue) {
+                for (Long id : batch) {
+                    ActivityView activity = open.get(id);
+                    // replace() keeps a loan out once loanEnded removed it
+                    if (activity != null) {
+                        overdue.replace(id, activity);
+                    } else {
+                        overdue.remove(id);
+                    }
+                }
+            }
+        }
+    }
+
+
+    // Loans past their due time and not returned, in the order they fell due
+    public List<ActivityView> list() {
+        synchronized (overdue) {
+            List<ActivityView> list = new ArrayList<>(overdue.size());
+            for (ActivityView activity : overdue.values()) {
+                if (activity != null) list.add(activity);
+            }
+            return list;
+        }
+    }
+
+
+    // Number of open loans not yet due
+    public int scheduledLoans() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
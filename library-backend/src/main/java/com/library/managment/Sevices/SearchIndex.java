@@ -0,0 +1,224 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.BookRepository.BookText;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.MemberRepository.MemberName;
+import com.library.managment.util.TrigramIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory substring search over book titles, book authors and member names, so that
+ * searching does not run LIKE '%text%' over the whole table.
+ *
+ * The trigram indexes are built from the database at startup; BookController and
+ * MemberController keep them up to date when they create, update or delete rows. Books
+ * and members changed through another backend node are picked up at the next start.
+ */
+@Service
+public class SearchIndex {
+
+    // Rows read per query while building
+    private static final int LOAD_BATCH = 10_000;
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+
+    private final TrigramIndex titles = new TrigramIndex();
+    private final TrigramIndex authors = new TrigramIndex();
+    private final TrigramIndex memberNames = new TrigramIndex();
+    // Guards the three indexes: searches share it, updates are exclusive
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    // Runs once at application start; can be called again after rows were written directly
+    @PostConstruct
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            authors.clear();
+            memberNames.clear();
+
+            List<BookText> books;
+            long afterId = 0;
+            do {
+                books = bookRepository.findTextsAfter(afterId, Limit.of(LOAD_BATCH));
+                for (BookText book : books) {
+                    titles.put(book.id(), book.title());
+                    authors.put(book.id(), book.author());
+                    afterId = book.id();
+                }
+            } while (books.size() == LOAD_BATCH);
+
+            List<MemberName> members;
+            afterId = 0;
+            do {
+                members = memberRepository.findNamesAfter(afterId, Limit.of(LOAD_BATCH));
+                for (MemberName member : members) {
+                    memberNames.put(member.id(), member.name());
+                    afterId = member.id();
+                }
+            } while (members.size() == LOAD_BATCH);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("🔎 Indexed " + titles.size() + " books and " + memberNames.size() + " members in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+
+    // ========== UPDATES ==========
+
+    public void bookSaved(Book book) {
+        lock.writeLock().lock();
+        try {
+            titles.put(book.getId(), book.getTitle());
+            authors.put(book.getId(), book.getAuthor());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void bookDeleted(long bookId) {
+        lock.writeLock().lock();
+        try {
+            titles.remove(bookId);
+            authors.remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Index the books inserted after afterId behind JPA's back (bulk import); returns the highest id indexed
+    public long booksAddedAfter(long afterId) {
+        List<BookText> books;
+        do {
+            books = bookRepository.findTextsAfter(afterId, Limit.of(LOAD_BATCH));
+            lock.writeLock().lock();
+            try {
+                for (BookText book : books) {
+                    titles.put(book.id(), book.title());
+                    authors.put(book.id(), book.author());
+                    afterId = book.id();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (books.size() == LOAD_BATCH);
+        return afterId;
+    }
+
+    public void memberSaved(Member member) {
+        lock.writeLock().lock();
+        try {
+            memberNames.put(member.getId(), member.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Same for members; added is called with each new id; returns the highest id indexed
+    public long membersAddedAfter(long afterId, LongConsumer added) {
+        List<MemberName> members;
+        do {
+            members = memberRepository.findNamesAfter(afterId, Limit.of(LOAD_BATCH));
+            lock.writeLock().lock();
+            try {
+                for (MemberName member : members) {
+                    memberNames.put(member.id(), member.name());
+                    afterId = member.id();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (MemberName member : members) added.accept(member.id());
+        } while (members.size() == LOAD_BATCH);
+        return afterId;
+    }
+
+    public void memberDeleted(long memberId) {
+        lock.writeLock().lock();
+        try {
+            memberNames.remove(memberId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    // ========== SEARCH ==========
+
+    // Ids of the books whose title contains title and whose author contains author (null = any),
+    // ignoring case, in ascending order
+    public long[] searchBooks(String title, String author) {
+        lock.readLock().lock();
+        try {
+            if (author == null) return titles.search(title);
+            if (title == null) return authors.search(author);
+            return intersect(titles.search(title), authors.search(author));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the members whose name contains name, ignoring case, in ascending order
+    public long[] searchMembers(String name) {
+        lock.readLock().lock();
+        try {
+            return memberNames.search(name);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+
+    /**
+     * One page of search results: the ids of the page are loaded by primary key, and the
+     * total comes from the index, so neither a scan nor a COUNT(*) is run. Rows deleted
+     * since the search are left out of the page.
+     */
+    public static <T> Page<T> page(long[] ids, Pageable pageable, Function<List<Long>, List<T>> load,
+                                   Function<T, Long> idOf) {
+        long from = Math.min(pageable.getOffset(), ids.length);
+        int to = (int) Math.min(from + pageable.getPageSize(), ids.length);
+        List<Long> pageIds = new ArrayList<>(to - (int) from);
+        for (int i = (int) from; i < to; i++) pageIds.add(ids[i]);
+
+        List<T> content = pageIds.isEmpty() ? new ArrayList<>() : new ArrayList<>(load.apply(pageIds));
+        content.sort(Comparator.comparing(idOf));
+        return new PageImpl<>(content, pageable, ids.length);
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.managment.Sevices;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size pool of locks shared by all books.
+ *
+ * A book always maps to the same stripe, so memory stays constant no matter how
+ * large the catalog is, and the pool never has to be cleared (clearing a map of
+ * locks could hand a second thread a fresh lock while the old one is still held).
+ * Two books may share a stripe; that only costs some extra contention.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of lock stripes must be positive, got " + stripes);
+        }
+        // Round up to a power of two so the stripe index is a simple mask
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    // Index of the stripe guarding this book (stable for the lifetime of the pool)
+    public int stripeOf(long bookId) {
+        long h = bookId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public ReentrantLock lockFor(long bookId) {
+        return locks[stripeOf(bookId)];
+    }
+
+    // One book per stripe among these, in stripe order. Callers that lock the stripes
+    // of several books in this order never wait on each other in a cycle.
+    public long[] lockOrder(long[] bookIds) {
+        long[] keys = new long[bookIds.length];
+        for (int i = 0; i < bookIds.length; i++) {
+            keys[i] = (long) stripeOf(bookIds[i]) << 32 | i;
+        }
+        Arrays.sort(keys);
+        long[] result = new long[keys.length];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32) result[n++] = bookIds[(int) keys[i]];
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
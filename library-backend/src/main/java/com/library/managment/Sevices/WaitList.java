@@ -0,0 +1,182 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Waiting list of one book: members in arrival order, with O(log n) rank.
+ *
+ * Every member gets the next arrival slot. A Fenwick tree counts the occupied
+ * slots, so the rank of a member is the number of occupied slots up to theirs.
+ * Removing someone just empties their slot; the slots are renumbered only when
+ * the array is full, which keeps add/remove/rank at O(log n) amortized.
+ *
+ * Not thread-safe: callers hold the book lock.
+ */
+public class WaitList implements Iterable<Long> {
+
+    // Returned by first() when nobody is waiting
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final long EMPTY = NONE;
+    private static final int NO_SLOT = -1;
+
+    private long[] members = newSlots(INITIAL_CAPACITY);
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+
+    // memberId -> slot
+    private final LongIntHashMap slots = new LongIntHashMap();
+
+    // First occupied slot (or tail when empty) and next free slot
+    private int head;
+    private int tail;
+
+
+    // Add a member at the end of the queue, returns false if already waiting
+    public boolean add(long memberId) {
+        if (slots.containsKey(memberId)) return false;
+
+        if (tail == members.length) {
+            // Mostly holes: renumber in place, otherwise make room
+            resize(slots.size() <= members.length / 2 ? members.length : members.length * 2);
+        }
+
+        int slot = tail++;
+        members[slot] = memberId;
+        slots.put(memberId, slot);
+        update(slot, 1);
+        return true;
+    }
+
+
+    public boolean remove(long memberId) {
+        int slot = slots.get(memberId, NO_SLOT);
+        if (slot == NO_SLOT) return false;
+        slots.remove(memberId);
+
+        members[slot] = EMPTY;
+        update(slot, -1);
+
+        if (slots.isEmpty()) {
+            head = tail = 0;
+        } else {
+            while (members[head] == EMPTY) head++;
+        }
+        return true;
+    }
+
+
+    public boolean contains(long memberId) {
+        return slots.containsKey(memberId);
+    }
+
+
+    // 1-based position in the queue, or 0 if the member is not waiting
+    public long rank(long memberId) {
+        int slot = slots.get(memberId, NO_SLOT);
+        return slot == NO_SLOT ? 0 : prefixSum(slot);
+    }
+
+
+    // First member in line, or NONE when nobody is waiting
+    public long first() {
+        return slots.isEmpty() ? NONE : members[head];
+    }
+
+
+    public int size() {
+        return slots.size();
+    }
+
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+
+    // Members in arrival order; supports remove()
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int next = skipEmpty(head);
+            private int last = -1;
+
+            private int skipEmpty(int slot) {
+                while (slot < tail && members[slot] == EMPTY) slot++;
+                return slot;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < tail;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                last = next;
+                next = skipEmpty(next + 1);
+                return members[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0 || members[last] == EMPTY) throw new IllegalStateException();
+                WaitList.this.remove(members[last]);
+                next = skipEmpty(Math.max(next, head));
+            }
+        };
+    }
+
+
+    // ---- Fenwick tree over slots ----
+
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Number of occupied slots in [0, slot]
+    private long prefixSum(int slot) {
+        long sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Move the members to slots 0..size-1 of an array of the given capacity and rebuild the tree
+    private void resize(int capacity) {
+        long[] compacted = newSlots(capacity);
+        int[] newTree = new int[capacity + 1];
+        int size = 0;
+        for (int slot = head; slot < tail; slot++) {
+            if (members[slot] == EMPTY) continue;
+            compacted[size] = members[slot];
+            slots.put(members[slot], size);
+            newTree[size + 1] = 1;
+            size++;
+        }
+        // Linear-time Fenwick construction
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) newTree[parent] += newTree[i];
+        }
+
+        members = compacted;
+        tree = newTree;
+        head = 0;
+        tail = size;
+    }
+
+    private static long[] newSlots(int capacity) {
+        long[] slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
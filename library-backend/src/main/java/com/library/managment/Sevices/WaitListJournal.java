@@ -0,0 +1,342 @@
+package com.library.managment.Sevices;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of waiting-list mutations, so queues survive a restart.
+ *
+ * Records are fixed 32-byte entries (type, duration, book, member, CRC32C) appended
+ * to a memory-mapped log file: an append is a few writes to the page cache, with no
+ * system call and no database round-trip. The mapping is forced to disk every flush
+ * interval, so a crash of the process loses nothing and a crash of the machine at
+ * most the last interval. A torn record at the tail fails its checksum and ends the
+ * replay of that file.
+ *
+ * Compaction writes the current queues as a snapshot and starts a new generation:
+ *   snapshot-[g].bin   queues at some point after journal-[g].log was started
+ *   journal-[g].log    mutations from then on
+ * Records are idempotent, so replaying mutations already contained in the snapshot
+ * is harmless. Replay loads the newest snapshot, then every log of its generation
+ * and later, in order.
+ */
+@Service
+public class WaitListJournal {
+
+    // Record types (0 marks the unwritten end of a log)
+    private static final byte ENQUEUE = 1;    // add member at the end of the book's queue if absent, set duration
+    private static final byte DEQUEUE = 2;    // member got the book: drop their queue entry and duration
+    private static final byte EVICT = 3;      // member no longer valid: drop their queue entry and all durations
+    private static final byte LEAVE = 4;      // member left the library: drop them from every queue
+    private static final byte DROP_BOOK = 5;  // book deleted: drop its queue
+
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKED_BYTES = RECORD_SIZE - Integer.BYTES;
+
+    private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|bin)");
+
+    /** Receives replayed mutations, in the order they were made. */
+    public interface Visitor {
+        void enqueue(long bookId, long memberId, int duration);
+
+        void dequeue(long bookId, long memberId);
+
+        void evict(long bookId, long memberId);
+
+        void leave(long memberId);
+
+        void dropBook(long bookId);
+    }
+
+    /** Receives the queue entries of a snapshot, in queue order per book. */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        void enqueue(long bookId, long memberId, int duration);
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int logFileBytes;
+    private final long compactAfterBytes;
+
+    // Current log, guarded by this
+    private MappedByteBuffer log;
+    private long generation;
+    private long bytesSinceSnapshot;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C checksum = new CRC32C();
+
+    // Only one compaction at a time
+    private final Object compaction = new Object();
+
+
+    public WaitListJournal(
+            @Value("${library.journal.enabled:true}") boolean enabled,
+            @Value("${library.journal.dir:./data/journal}") String directory,
+            @Value("${library.journal.log-file-mb:64}") int logFileMb,
+            @Value("${library.journal.compact-after-mb:16}") int compactAfterMb) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.logFileBytes = logFileMb * 1024 * 1024 / RECORD_SIZE * RECORD_SIZE;
+        this.compactAfterBytes = (long) compactAfterMb * 1024 * 1024;
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    /**
+     * Replays the newest snapshot and the logs written after it, then starts a new
+     * log generation for appends. Returns the number of records replayed.
+     */
+    public long replay(Visitor visitor) {
+        if (!enabled) return 0;
+
+        try {
+            Files.createDirectories(directory);
+            long snapshot = -1;
+            List<Long> logs = new ArrayList<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                    if (!m.matches()) continue;
+                    long g = Long.parseLong(m.group(2));
+                    if (m.group(1).equals("snapshot")) snapshot = Math.max(snapshot, g);
+                    else logs.add(g);
+                }
+            }
+            logs.sort(null);
+
+            long records = 0;
+            if (snapshot >= 0) records += replayFile(snapshotFile(snapshot), visitor);
+            long last = Math.max(snapshot, 0);
+            for (long g : logs) {
+                if (g >= snapshot) records += replayFile(logFile(g), visitor);
+                last = Math.max(last, g);
+            }
+
+            synchronized (this) {
+                startGeneration(last + 1);
+                // Nothing in the new generation yet, but older logs are still needed until compacted
+                bytesSinceSnapshot = logs.isEmpty() ? 0 : compactAfterBytes;
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay waiting-list journal in " + directory, e);
+        }
+    }
+
+    private long replayFile(Path file, Visitor visitor) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] bytes = new byte[RECORD_SIZE];
+            ByteBuffer entry = ByteBuffer.wrap(bytes);
+            CRC32C crc = new CRC32C();
+
+            while (buffer.remaining() >= RECORD_SIZE) {
+                buffer.get(bytes);
+                byte type = bytes[0];
+                if (type == 0) break;
+
+                crc.reset();
+                crc.update(bytes, 0, CHECKED_BYTES);
+                if ((int) crc.getValue() != entry.getInt(CHECKED_BYTES)) {
+                    System.out.println("⚠️ Torn journal record in " + file.getFileName() + ", ignoring the rest of it");
+                    break;
+                }
+
+                int duration = entry.getInt(4);
+                long bookId = entry.getLong(8);
+                long memberId = entry.getLong(16);
+                switch (type) {
+                    case ENQUEUE -> visitor.enqueue(bookId, memberId, duration);
+                    case DEQUEUE -> visitor.dequeue(bookId, memberId);
+                    case EVICT -> visitor.evict(bookId, memberId);
+                    case LEAVE -> visitor.leave(memberId);
+                    case DROP_BOOK -> visitor.dropBook(bookId);
+                    default -> throw new IllegalStateException("Unknown journal record type " + type + " in " + file);
+                }
+                records++;
+            }
+        }
+        return records;
+    }
+
+
+    // ---- Appends (no-ops until replay has started a generation) ----
+
+    public void enqueue(long bookId, long memberId, int duration) {
+        append(ENQUEUE, bookId, memberId, duration);
+    }
+
+    public void dequeue(long bookId, long memberId) {
+        append(DEQUEUE, bookId, memberId, 0);
+    }
+
+    public void evict(long bookId, long memberId) {
+        append(EVICT, bookId, memberId, 0);
+    }
+
+    public void leave(long memberId) {
+        append(LEAVE, 0, memberId, 0);
+    }
+
+    public void dropBook(long bookId) {
+        append(DROP_BOOK, bookId, 0, 0);
+    }
+
+    private synchronized void append(byte type, long bookId, long memberId, int duration) {
+        if (log == null) return;
+        if (log.remaining() < RECORD_SIZE) startGeneration(generation + 1);
+
+        fill(record, checksum, type, bookId, memberId, duration);
+        log.put(record.array());
+        bytesSinceSnapshot += RECORD_SIZE;
+    }
+
+    private static void fill(ByteBuffer record, CRC32C checksum, byte type, long bookId, long memberId, int duration) {
+        record.clear();
+        record.put(type).put((byte) 0).putShort((short) 0)
+                .putInt(duration)
+                .putLong(bookId)
+                .putLong(memberId)
+                .putInt(0);
+        checksum.reset();
+        checksum.update(record.array(), 0, CHECKED_BYTES);
+        record.putInt((int) checksum.getValue());
+    }
+
+    // Switch appends to a new, pre-sized log file. Caller holds this.
+    private void startGeneration(long next) {
+        try (FileChannel channel = FileChannel.open(logFile(next),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer previous = log;
+            // The mapping stays valid after the channel is closed
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, logFileBytes);
+            generation = next;
+            if (previous != null) previous.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal " + logFile(next), e);
+        }
+    }
+
+
+    // Write recent appends to disk; a process crash loses nothing even without it
+    @Scheduled(fixedDelayString = "${library.journal.flush-interval-ms:1000}")
+    public void flush() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = log;
+        }
+        // force() does not block concurrent appends to the mapping
+        if (current != null) current.force();
+    }
+
+
+    public synchronized boolean needsCompaction() {
+        return log != null && bytesSinceSnapshot >= compactAfterBytes;
+    }
+
+
+    /**
+     * Starts a new generation, writes the queues supplied by the caller as its snapshot
+     * and deletes older files. The caller visits the queues while appends continue
+     * (per book under the book lock), so this must not be called with a book lock held.
+     */
+    public void compact(Consumer<SnapshotWriter> queues) {
+        if (!enabled) return;
+
+        synchronized (compaction) {
+            long snapshotGeneration;
+            synchronized (this) {
+                if (log == null) return;
+                startGeneration(generation + 1);
+                snapshotGeneration = generation;
+                bytesSinceSnapshot = 0;
+            }
+
+            Path target = snapshotFile(snapshotGeneration);
+            Path temporary = directory.resolve(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+                ByteBuffer entry = ByteBuffer.allocate(RECORD_SIZE);
+                CRC32C crc = new CRC32C();
+
+                queues.accept((bookId, memberId, duration) -> {
+                    fill(entry, crc, ENQUEUE, bookId, memberId, duration);
+                    if (buffer.remaining() < RECORD_SIZE) drain(buffer, channel);
+                    buffer.put(entry.array());
+                });
+                drain(buffer, channel);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write journal snapshot " + target, e);
+            }
+
+            try {
+                // A snapshot only becomes visible once complete
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+                deleteOlderThan(snapshotGeneration);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot install journal snapshot " + target, e);
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void deleteOlderThan(long keep) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                if (m.matches() && Long.parseLong(m.group(2)) < keep) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+
+    private Path logFile(long g) {
+        return directory.resolve("journal-" + g + ".log");
+    }
+
+    private Path snapshotFile(long g) {
+        return directory.resolve("snapshot-" + g + ".bin");
+    }
+
+
+    @PreDestroy
+    public synchronized void close() {
+        if (log != null) {
+            log.force();
+            log = null;
+        }
+    }
+}
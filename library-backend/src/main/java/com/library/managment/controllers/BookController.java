@@ -1,15 +1,30 @@
 package com.library.managment.controllers;
 
+import com.library.managment.Sevices.BulkImportService;
+import com.library.managment.Sevices.EntityCache;
+import com.library.managment.Sevices.ExportService;
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.SearchIndex;
+import com.library.managment.dto.CursorSlice;
+import com.library.managment.dto.ImportResult;
 import com.library.managment.model.Book;
 import com.library.managment.model.Member;
 import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.KeysetSlices;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,8 +37,20 @@ public class BookController {
 
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private LibraryService libraryService;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private EntityCache entityCache;
+    @Autowired
+    private BulkImportService bulkImportService;
 
     public static final String BASE_URL = "https://raw.githubusercontent.com/smoothcoode/Image/refs/heads/main/books/";
+    // Largest slice returned at once
+    private static final int MAX_SLICE = 500;
 
     @GetMapping
     public List<Book> getAllBooks(){
@@ -31,25 +58,59 @@ public class BookController {
     }
     // Get all books
 
+    // All books as NDJSON, streamed with constant memory
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exportService.writeNdjson(bookRepository::streamAll, response.getOutputStream());
+    }
+
     @GetMapping("/pageable")
     public Page<Book> getAllBooksPageable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "9") int size,
-            @RequestParam(required = false) String title) {
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String author) {
 
         Pageable pageable = PageRequest.of(page, size);
+        boolean byTitle = title != null && !title.trim().isEmpty();
+        boolean byAuthor = author != null && !author.trim().isEmpty();
 
-        if (title != null && !title.trim().isEmpty()) {
-            return bookRepository.findByTitleContainingIgnoreCase(title, pageable);
+        if (byTitle || byAuthor) {
+            // Matches come from the in-memory index, in id order
+            long[] ids = searchIndex.searchBooks(byTitle ? title : null, byAuthor ? author : null);
+            return SearchIndex.page(ids, pageable, bookRepository::findAllById, Book::getId);
         } else {
             return bookRepository.findAll(pageable);
         }
     }
 
+    // Books one slice at a time, without COUNT(*) or OFFSET: send nextCursor back as cursor.
+    // Sorted by id, or by title then id.
+    @GetMapping("/slice")
+    public CursorSlice<Book> getBooksSlice(
+            @RequestParam(defaultValue = "9") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String cursor) {
+        Specification<Book> spec = BookRepository.titleContains(title);
+        int limit = Math.max(1, Math.min(size, MAX_SLICE));
+        try {
+            return switch (sort) {
+                case "id" -> KeysetSlices.byId(bookRepository, spec, limit, cursor);
+                case "title" -> KeysetSlices.byProperty(bookRepository, spec, "title", limit, cursor);
+                default -> throw new IllegalArgumentException("sort must be id or title");
+            };
+        } catch (IllegalArgumentException e) {
+            // Unknown sort, or a cursor that is malformed or from another sort
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     // Get book by id
     @GetMapping("/{id}")
     public Book getBookById(@PathVariable Long id) {
-        return bookRepository.findById(id).orElseThrow();
+        return entityCache.book(id).orElseThrow();
     }
 
     // Add new book
@@ -67,7 +128,9 @@ public class BookController {
 
     @PostMapping
     public Book createBook(@RequestBody Book book) {
-        return bookRepository.save(initializeBook(book));
+        Book saved = bookRepository.save(initializeBook(book));
+        searchIndex.bookSaved(saved);
+        return saved;
     }
 
     @PostMapping("/batch")
@@ -76,10 +139,24 @@ public class BookController {
         for (Book book : books) {
             initializeBook(book);
         }
-        return bookRepository.saveAll(books);
+        List<Book> savedBooks = bookRepository.saveAll(books);
+        for (Book b : savedBooks) searchIndex.bookSaved(b);
+        return savedBooks;
     }
 
 
+    // Bulk import: NDJSON or CSV (header row with the JSON property names), read and inserted in chunks
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkImportService.TEXT_CSV_VALUE})
+    public ImportResult importBooks(HttpServletRequest request) throws IOException {
+        try {
+            return bulkImportService.importBooks(request.getInputStream(), BulkImportService.Format.of(request.getContentType()),
+                    this::initializeBook);
+        } catch (IllegalArgumentException e) {
+            // Malformed row: the chunks before it are kept
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     // Update existing book
     @PutMapping("/{id}")
     public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book bookDetails) {
@@ -91,6 +168,9 @@ public class BookController {
         book.setAvailableCopies(bookDetails.getAvailableCopies());
 
         Book updatedBook = bookRepository.save(book);
+        searchIndex.bookSaved(updatedBook);
+        // Copies may have changed: refresh the in-memory stock
+        libraryService.bookChanged(id);
         return ResponseEntity.ok(updatedBook);
     }
 
@@ -102,6 +182,8 @@ public class BookController {
         }
 
         bookRepository.deleteById(id);
+        libraryService.bookDeleted(id);
+        searchIndex.bookDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -1,14 +1,22 @@
 package com.library.managment.controllers;
 
+import com.library.managment.Sevices.ExportService;
 import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.NotificationStreamService;
+import com.library.managment.Sevices.OverdueLoans;
+import com.library.managment.dto.ActivityView;
 import com.library.managment.dto.BookBorrowResponse;
 import com.library.managment.model.Notification;
-import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.ReadingActivityHistoryRepository;
 import com.library.managment.repository.ReadingActivityRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
 import java.util.List;
 import java.util.Queue;
 
@@ -22,13 +30,50 @@ public class LibraryController {
     private LibraryService libraryService;
     @Autowired
     private ReadingActivityRepository readingActivityRepository;
+    @Autowired
+    private NotificationStreamService notificationStream;
+    @Autowired
+    private OverdueLoans overdueLoans;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ReadingActivityHistoryRepository historyRepository;
 
+    // Largest page of returned loans sent at once
+    private static final int MAX_HISTORY_PAGE = 500;
 
-    // show books not returned before deadline
+
+    // Open loans only. Returned loans are listed by /history (moved there by the archive job)
+    // and exported by /export, so what this returns never depends on when the archive job last ran.
     @GetMapping()
-    public List<ReadingActivity> getActivities() {
+    public List<ActivityView> getActivities() {
 
-        return readingActivityRepository.findAll();
+        return readingActivityRepository.findActiveViews();
+    }
+
+
+    // Returned loans from the history, one page at a time: pass the last id received as afterId
+    @GetMapping("/history")
+    public List<ActivityView> getHistory(
+            @RequestParam(required = false) Long memberId,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "50") int size) {
+        Limit limit = Limit.of(Math.max(1, Math.min(size, MAX_HISTORY_PAGE)));
+
+        if (memberId != null) {
+            return historyRepository.findViewsByMemberAfter(memberId, afterId, limit);
+        } else {
+            return historyRepository.findViewsAfter(afterId, limit);
+        }
+    }
+
+
+    // Whole activity history as NDJSON (archived loans, then the loan table), streamed with constant memory
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportActivities(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exportService.writeNdjson(List.of(historyRepository::streamAll, readingActivityRepository::streamAll),
+                response.getOutputStream());
     }
 
 
@@ -39,6 +84,13 @@ public class LibraryController {
     }
 
 
+    // Admin: live notifications (a "snapshot" event, then "add"/"remove" events)
+    @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications() {
+        return notificationStream.subscribe(libraryService::getAdminNotifications);
+    }
+
+
     // Approve next reader for a book
     @PostMapping("/approve/{bookId}/{memberId}")
     public BookBorrowResponse approveReader(@PathVariable Long bookId,@PathVariable Long memberId) {
@@ -48,12 +100,11 @@ public class LibraryController {
 
 
 
-// show books not returned before deadline
+// show books not returned before deadline (kept in memory by the loan timing wheel)
 @GetMapping("/expired")
-public List<ReadingActivity> getExpiredActivities() {
+public List<ActivityView> getExpiredActivities() {
 
-    return readingActivityRepository.
-            findByIsActiveTrueAndExpectedEndTimeBefore(LocalDateTime.now());
+    return overdueLoans.list();
 }
 
 
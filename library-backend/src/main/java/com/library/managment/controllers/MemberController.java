@@ -1,25 +1,39 @@
 package com.library.managment.controllers;
 
+import com.library.managment.Sevices.BulkImportService;
+import com.library.managment.Sevices.EntityCache;
+import com.library.managment.Sevices.ExportService;
 import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.SearchIndex;
+import com.library.managment.dto.ActivityView;
 import com.library.managment.dto.BookBorrowResponse;
+import com.library.managment.dto.BorrowRequest;
+import com.library.managment.dto.CursorSlice;
+import com.library.managment.dto.ImportResult;
 import com.library.managment.model.Book;
 import com.library.managment.model.Member;
-import com.library.managment.model.ReadingActivity;
 import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.KeysetSlices;
 import com.library.managment.repository.MemberRepository;
 import com.library.managment.repository.ReadingActivityRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/member")
@@ -36,15 +50,59 @@ public class MemberController {
     private ReadingActivityRepository readingActivityRepository;
     @Autowired
     private LibraryService libraryService;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private EntityCache entityCache;
+    @Autowired
+    private BulkImportService bulkImportService;
 
     public static final String BASE_URL = "https://raw.githubusercontent.com/smoothcoode/Image/refs/heads/main/members/";
     private static final int DEFAULT_READING_HOURS = 6;
+    // Largest page of available books returned at once
+    private static final int MAX_AVAILABLE_PAGE = 500;
+    // Largest slice returned at once
+    private static final int MAX_SLICE = 500;
+    // Most borrows or returns sent in one batch
+    private static final int MAX_BATCH = 100;
 
     @GetMapping
     public List<Member> getAllMembers() {
         return memberRepository.findAll();
     }
 
+    // All members as NDJSON, streamed with constant memory
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportMembers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exportService.writeNdjson(memberRepository::streamAll, response.getOutputStream());
+    }
+
+    // Members one slice at a time, without COUNT(*) or OFFSET: send nextCursor back as cursor.
+    // Sorted by id, or by name then id; active=true lists only members inside the library.
+    @GetMapping("/slice")
+    public CursorSlice<Member> getMembersSlice(
+            @RequestParam(defaultValue = "9") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "false") boolean active,
+            @RequestParam(required = false) String cursor) {
+        Specification<Member> spec = MemberRepository.nameContains(name).and(MemberRepository.activeOnly(active));
+        int limit = Math.max(1, Math.min(size, MAX_SLICE));
+        try {
+            return switch (sort) {
+                case "id" -> KeysetSlices.byId(memberRepository, spec, limit, cursor);
+                case "name" -> KeysetSlices.byProperty(memberRepository, spec, "name", limit, cursor);
+                default -> throw new IllegalArgumentException("sort must be id or name");
+            };
+        } catch (IllegalArgumentException e) {
+            // Unknown sort, or a cursor that is malformed or from another sort
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     // Get all members pageable
     @GetMapping("/pageable")
     public Page<Member> getAllMembersPageable(
@@ -55,7 +113,9 @@ public class MemberController {
         Pageable pageable = PageRequest.of(page, size);
 
         if (name != null && !name.trim().isEmpty()) {
-            return memberRepository.findByNameContainingIgnoreCase(name, pageable);
+            // Matches come from the in-memory index, in id order
+            return SearchIndex.page(searchIndex.searchMembers(name), pageable,
+                    memberRepository::findAllById, Member::getId);
         } else {
             return memberRepository.findAll(pageable);
         }
@@ -63,7 +123,7 @@ public class MemberController {
 
     @GetMapping("/{id}")
     public Member getMemberById(@PathVariable Long id) {
-        return memberRepository.findById(id).orElseThrow();
+        return entityCache.member(id).orElseThrow();
     }
 
     // Initialize member
@@ -77,6 +137,7 @@ public class MemberController {
     @PostMapping
     public Member createMember(@RequestBody Member member) {
         Member m = memberRepository.save(initializeMember(member));
+        searchIndex.memberSaved(m);
         libraryService.userEntersLibrary(m.getId());
         return m;
     }
@@ -88,10 +149,25 @@ public class MemberController {
             initializeMember(member);
         }
         List<Member> savedMembers = memberRepository.saveAll(members);
-        for (Member m : savedMembers) libraryService.userEntersLibrary(m.getId());
+        for (Member m : savedMembers) {
+            searchIndex.memberSaved(m);
+            libraryService.userEntersLibrary(m.getId());
+        }
         return savedMembers;
     }
 
+    // Bulk import: NDJSON or CSV (header row with the JSON property names), read and inserted in chunks
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkImportService.TEXT_CSV_VALUE})
+    public ImportResult importMembers(HttpServletRequest request) throws IOException {
+        try {
+            return bulkImportService.importMembers(request.getInputStream(), BulkImportService.Format.of(request.getContentType()),
+                    this::initializeMember);
+        } catch (IllegalArgumentException e) {
+            // Malformed row: the chunks before it are kept
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     // Update existing member
     @PutMapping("/{id}")
     public ResponseEntity<Member> updateMember(@PathVariable Long id, @RequestBody Member memberDetails) {
@@ -100,6 +176,8 @@ public class MemberController {
         member.setName(memberDetails.getName());
 
         Member updatedMember = memberRepository.save(member);
+        searchIndex.memberSaved(updatedMember);
+        libraryService.memberChanged(updatedMember);
         return ResponseEntity.ok(updatedMember);
     }
 
@@ -111,6 +189,8 @@ public class MemberController {
         }
 
         memberRepository.deleteById(id);
+        libraryService.memberDeleted(id);
+        searchIndex.memberDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -135,34 +215,29 @@ public class MemberController {
     @PostMapping("/toggle-active/{id}")
     public Member enterLibrary(@PathVariable Long id) {
         Member member = memberRepository.findById(id).orElseThrow();
-        if (member.getActive()) {
-            libraryService.userLeavesLibrary(id);
-        } else {
-            libraryService.userEntersLibrary(id);
-        }
-        member.setActive(!member.getActive());
-        return memberRepository.save(member);
+        return libraryService.setMemberActive(member, !member.getActive());
     }
 
     @GetMapping("borrowed/{memberId}")
-    public List<ReadingActivity> getBorrowedBooks(@PathVariable Long memberId) {
+    public List<ActivityView> getBorrowedBooks(@PathVariable Long memberId) {
         return readingActivityRepository
-                .findByMemberIdAndIsActiveTrue(memberId);
+                .findActiveViewsByMember(memberId);
     }
 
+    // Books the member is not reading, one page at a time: pass the last id received as afterId
     @GetMapping("available/{memberId}")
-    public List<Book> getAvailableBooks(@PathVariable Long memberId) {
-        Set<Long> activeBookIds = readingActivityRepository
-                .findByMemberIdAndIsActiveTrue(memberId)
-                .stream()
-                .map(ra -> ra.getBook().getId())
-                .collect(Collectors.toSet());
-
-        List<Book> availableBooks = new ArrayList<>();
-        for (Book b : bookRepository.findAll()) {
-            if (!activeBookIds.contains(b.getId())) availableBooks.add(b);
+    public List<Book> getAvailableBooks(
+            @PathVariable Long memberId,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String title) {
+        Limit limit = Limit.of(Math.max(1, Math.min(size, MAX_AVAILABLE_PAGE)));
+
+        if (title != null && !title.trim().isEmpty()) {
+            return bookRepository.findAvailableForMemberByTitle(memberId, afterId, title.trim(), limit);
+        } else {
+            return bookRepository.findAvailableForMember(memberId, afterId, limit);
         }
-        return availableBooks;
     }
 
     // Request a book
@@ -180,10 +255,51 @@ public class MemberController {
         return libraryService.requestBook(memberId, bookId, duration);
     }
 
+    // Several borrows in one call and one transaction; one response per request, in order
+    @PostMapping("/borrow/batch")
+    public List<BookBorrowResponse> borrowBooks(@RequestBody List<BorrowRequest> requests) {
+        checkBatchSize(requests.size());
+        List<BorrowRequest> withDurations = new ArrayList<>(requests.size());
+        for (BorrowRequest request : requests) {
+            if (request == null || request.memberId() == null || request.bookId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Each request needs a memberId and a bookId");
+            }
+            withDurations.add(request.duration() != null ? request
+                    : new BorrowRequest(request.memberId(), request.bookId(), DEFAULT_READING_HOURS));
+        }
+        return libraryService.requestBooks(withDurations);
+    }
+
+    // Position of a member in a book's waiting list
+    @GetMapping("/{memberId}/queue/{bookId}")
+    public BookBorrowResponse getQueueRank(@PathVariable Long memberId, @PathVariable Long bookId) {
+        long rank = libraryService.getQueueRank(memberId, bookId);
+        if (rank == 0) {
+            return new BookBorrowResponse(false, "You are not in the waiting list for this book");
+        }
+        return new BookBorrowResponse(true, "You are number " + rank + " in the waiting list", rank);
+    }
+
     // Return a book
     @PostMapping("/return/{activityId}")
     public BookBorrowResponse returnBook(@PathVariable Long activityId) {
         libraryService.returnBook(activityId);
         return new BookBorrowResponse(true, "book returned successfully");
     }
+
+    // Return several loans in one call and one transaction; one response per loan, in order
+    @PostMapping("/return/batch")
+    public List<BookBorrowResponse> returnBooks(@RequestBody List<Long> activityIds) {
+        checkBatchSize(activityIds.size());
+        if (activityIds.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Activity ids must not be null");
+        }
+        return libraryService.returnBooks(activityIds);
+    }
+
+    private static void checkBatchSize(int size) {
+        if (size > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH + " items per batch");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.library.managment.dto;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * A ReadingActivity as the frontend lists it: the loan with only the id, title/name and
+ * image of its book and member. Read with one joined query, without loading entities,
+ * and serialized with the same shape as the entity.
+ */
+public record ActivityView(Long id, BookRef book, MemberRef member, LocalDateTime startTime,
+                           LocalDateTime expectedEndTime, Boolean active) {
+
+    public record BookRef(Long id, String title, String imageUrl) {
+    }
+
+    public record MemberRef(Long id, String name, String imageUrl) {
+    }
+
+    // Flat form, for JPQL constructor expressions
+    public ActivityView(Long id, Long bookId, String bookTitle, String bookImageUrl,
+                        Long memberId, String memberName, String memberImageUrl,
+                        LocalDateTime startTime, LocalDateTime expectedEndTime, Boolean active) {
+        this(id, new BookRef(bookId, bookTitle, bookImageUrl), new MemberRef(memberId, memberName, memberImageUrl),
+                startTime, expectedEndTime, active);
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.managment.dto;
+
+
+/**
+ * One item of a batch borrow: the member, the book and how many hours they want it
+ * (null for the default reading time).
+ */
+public record BorrowRequest(Long memberId, Long bookId, Integer duration) {
+}
@@ -0,0 +1,120 @@
+package com.library.managment.dto;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * One slice of a keyset-paginated listing: no total count, no offset.
+ *
+ * nextCursor is opaque to clients. It holds the sort keys of the last row (a small
+ * binary encoding in Base64url) and is sent back as ?cursor= to get the rows after
+ * it. It is null on the last slice.
+ */
+public class CursorSlice<T> {
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte STRING = 2;
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    private CursorSlice(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = content.size();
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> CursorSlice<T> of(Window<T> window) {
+        KeysetScrollPosition last = window.isEmpty() ? null
+                : (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        return of(window.getContent(), window.hasNext(), last);
+    }
+
+    // last: position of the last row in content (only used when there is a next slice)
+    public static <T> CursorSlice<T> of(List<T> content, boolean hasNext, KeysetScrollPosition last) {
+        return new CursorSlice<>(content, hasNext, hasNext && last != null ? encode(last) : null);
+    }
+
+
+    /**
+     * Position after the row a cursor points at, or the start when there is no cursor.
+     * Throws IllegalArgumentException if the cursor is malformed or was made for another sort.
+     */
+    public static KeysetScrollPosition position(String cursor, Sort sort) {
+        if (cursor == null || cursor.isEmpty()) return ScrollPosition.keyset();
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            int count = in.readUnsignedByte();
+            for (int i = 0; i < count; i++) {
+                String property = in.readUTF();
+                byte type = in.readByte();
+                keys.put(property, switch (type) {
+                    case NULL -> null;
+                    case LONG -> in.readLong();
+                    case STRING -> in.readUTF();
+                    default -> throw new IllegalArgumentException("Invalid cursor");
+                });
+            }
+            if (in.available() > 0) throw new IllegalArgumentException("Invalid cursor");
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+
+        Set<String> properties = new HashSet<>();
+        sort.forEach(order -> properties.add(order.getProperty()));
+        if (!properties.equals(keys.keySet())) {
+            throw new IllegalArgumentException("Cursor does not match sort " + sort);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String encode(KeysetScrollPosition position) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(position.getKeys().size());
+            for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+                out.writeUTF(key.getKey());
+                Object value = key.getValue();
+                if (value == null) {
+                    out.writeByte(NULL);
+                } else if (value instanceof Number number) {
+                    out.writeByte(LONG);
+                    out.writeLong(number.longValue());
+                } else {
+                    out.writeByte(STRING);
+                    out.writeUTF(value.toString());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.managment.dto;
+
+
+/**
+ * Outcome of a bulk import: rows inserted, chunks committed and the sustained rate.
+ */
+public record ImportResult(long rows, long chunks, long millis, long rowsPerSecond) {
+
+    public static ImportResult of(long rows, long chunks, long nanos) {
+        long millis = nanos / 1_000_000;
+        long rowsPerSecond = nanos == 0 ? rows : rows * 1_000_000_000L / nanos;
+        return new ImportResult(rows, chunks, millis, rowsPerSecond);
+    }
+}
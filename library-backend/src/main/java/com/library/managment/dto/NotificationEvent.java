@@ -0,0 +1,70 @@
+package com.library.managment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.library.managment.model.Notification;
+
+import java.util.List;
+
+
+/**
+ * One change pushed on /library/notifications/stream.
+ * "snapshot" carries the full list, "add" a new or updated notification,
+ * "remove" only the book and member it was about.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL) // Only include non-null fields in JSON
+public class NotificationEvent {
+    public static final String SNAPSHOT = "snapshot";
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+
+    private String type;
+    private Long bookId;
+    private Long memberId;
+
+    // Optional fields
+    private Notification notification;
+    private List<Notification> notifications;
+
+    private NotificationEvent(String type, Long bookId, Long memberId) {
+        this.type = type;
+        this.bookId = bookId;
+        this.memberId = memberId;
+    }
+
+    public static NotificationEvent snapshot(List<Notification> notifications) {
+        NotificationEvent event = new NotificationEvent(SNAPSHOT, null, null);
+        event.notifications = notifications;
+        return event;
+    }
+
+    public static NotificationEvent add(Notification notification) {
+        NotificationEvent event = new NotificationEvent(ADD,
+                notification.getBook().getId(), notification.getMember().getId());
+        event.notification = notification;
+        return event;
+    }
+
+    public static NotificationEvent remove(Long bookId, Long memberId) {
+        return new NotificationEvent(REMOVE, bookId, memberId);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public Notification getNotification() {
+        return notification;
+    }
+
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+}
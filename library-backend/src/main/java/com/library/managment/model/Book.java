@@ -4,9 +4,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 
 @Entity
+// Keyset slices sorted by title seek on this index
+@Table(indexes = @Index(name = "idx_book_title_id", columnList = "title, id"))
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -4,8 +4,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 @Entity
+// Keyset slices sorted by name seek on this index
+@Table(indexes = @Index(name = "idx_member_name_id", columnList = "name, id"))
 public class Member {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,82 @@
+package com.library.managment.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A returned loan, moved out of ReadingActivity by the archive job so the loan table
+ * only holds open loans. Keeps the id it had there.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_history_member_id", columnList = "member_id, id"))
+public class ReadingActivityHistory {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Member member;
+
+    private LocalDateTime startTime;
+    private LocalDateTime expectedEndTime;
+    private LocalDateTime archivedAt;
+
+    public ReadingActivityHistory() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+
+    public Member getMember() {
+        return member;
+    }
+
+    public void setMember(Member member) {
+        this.member = member;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getExpectedEndTime() {
+        return expectedEndTime;
+    }
+
+    public void setExpectedEndTime(LocalDateTime expectedEndTime) {
+        this.expectedEndTime = expectedEndTime;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    // Archived loans were always returned
+    public Boolean getActive() {
+        return false;
+    }
+}
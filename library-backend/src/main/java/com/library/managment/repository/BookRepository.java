@@ -1,12 +1,84 @@
 package com.library.managment.repository;
 
 import com.library.managment.model.Book;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
-    Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
+import java.util.List;
+import java.util.stream.Stream;
 
-}
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+
+    // Id, title and author only, for the search index
+    record BookText(Long id, String title, String author) {
+    }
+
+    @Query("SELECT new com.library.managment.repository.BookRepository$BookText(b.id, b.title, b.author) "
+            + "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<BookText> findTextsAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Title contains the text, ignoring case (no restriction when blank); used with keyset scrolling
+    static Specification<Book> titleContains(String title) {
+        return (root, query, cb) -> title == null || title.isBlank() ? null
+                : cb.like(cb.lower(root.get("title")), LikePatterns.contains(title), '\\');
+    }
+
+    // Highest id in use, 0 when empty
+    @Query("SELECT COALESCE(MAX(b.id), 0) FROM Book b")
+    long findMaxId();
+
+    // Every book through a JDBC cursor, for exports (needs an open transaction)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+
+    // Books the member is not reading right now, by id after afterId (keyset page, no count query)
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId AND NOT EXISTS ("
+            + "SELECT 1 FROM ReadingActivity a WHERE a.book = b AND a.member.id = :memberId AND a.isActive = true) "
+            + "ORDER BY b.id")
+    List<Book> findAvailableForMember(@Param("memberId") Long memberId, @Param("afterId") long afterId, Limit limit);
 
+    // Same, only titles containing the given text (case-insensitive, % and _ matched literally)
+    default List<Book> findAvailableForMemberByTitle(Long memberId, long afterId, String title, Limit limit) {
+        return findAvailableForMemberByTitlePattern(memberId, afterId, LikePatterns.contains(title), limit);
+    }
+
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId AND LOWER(b.title) LIKE :pattern ESCAPE '\\' "
+            + "AND NOT EXISTS ("
+            + "SELECT 1 FROM ReadingActivity a WHERE a.book = b AND a.member.id = :memberId AND a.isActive = true) "
+            + "ORDER BY b.id")
+    List<Book> findAvailableForMemberByTitlePattern(@Param("memberId") Long memberId, @Param("afterId") long afterId,
+                                                    @Param("pattern") String pattern, Limit limit);
+
+
+    // Take one copy if any is left; returns the number of updated rows (0 = none available)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id = :id AND b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("id") Long id);
+
+    // Give one copy back, never above totalCopies; returns the number of updated rows
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1 WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id);
+
+    // Give several copies back at once, never above totalCopies; returns the number of updated rows
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = least(b.availableCopies + :count, b.totalCopies) WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int returnCopies(@Param("id") Long id, @Param("count") int count);
+
+}
@@ -0,0 +1,105 @@
+package com.library.managment.repository;
+
+import com.library.managment.dto.CursorSlice;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset (seek) slices over a Specification: WHERE (key) > (last key) ORDER BY key LIMIT n,
+ * so a deep slice costs the same as the first one and no COUNT(*) is run.
+ *
+ * Spring Data cannot seek past a NULL key, so for a nullable property the rows without
+ * a value are listed first, by id, and the others follow sorted by (property, id).
+ */
+public final class KeysetSlices {
+
+    private static final String ID = "id";
+
+    private KeysetSlices() {
+    }
+
+    // Sorted by id; cursor is a nextCursor from an earlier slice (or null)
+    public static <T> CursorSlice<T> byId(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                          int limit, String cursor) {
+        KeysetScrollPosition position = withId(CursorSlice.position(cursor, Sort.by(ID)));
+        return CursorSlice.of(scroll(repository, spec, Sort.by(ID), limit, position));
+    }
+
+    // Sorted by property then id, rows where property is null first
+    public static <T> CursorSlice<T> byProperty(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                                String property, int limit, String cursor) {
+        Sort sort = Sort.by(property, ID);
+        KeysetScrollPosition position = withId(CursorSlice.position(cursor, sort));
+
+        List<T> content = new ArrayList<>();
+        Map<String, Object> last = null;
+
+        if (position.isInitial() || position.getKeys().get(property) == null) {
+            KeysetScrollPosition byId = position.isInitial()
+                    ? ScrollPosition.keyset()
+                    : ScrollPosition.forward(Map.of(ID, position.getKeys().get(ID)));
+            Window<T> nulls = scroll(repository, spec.and(isNull(property)), Sort.by(ID), limit, byId);
+            content.addAll(nulls.getContent());
+            if (!nulls.isEmpty()) {
+                last = new LinkedHashMap<>();
+                last.put(property, null);
+                last.put(ID, ((KeysetScrollPosition) nulls.positionAt(nulls.size() - 1)).getKeys().get(ID));
+            }
+            if (nulls.hasNext()) return CursorSlice.of(content, true, ScrollPosition.forward(last));
+            position = ScrollPosition.keyset();
+        }
+
+        // With the slice already full, one more row only tells whether there is a next one
+        int remaining = limit - content.size();
+        Specification<T> withValue = spec.and(isNotNull(property));
+        Object from = position.isInitial() ? null : position.getKeys().get(property);
+        if (from instanceof Comparable<?> value) {
+            // Redundant with the keyset OR, but lets the database seek on the (property, id) index
+            withValue = withValue.and(atLeast(property, value));
+        }
+        Window<T> values = scroll(repository, withValue, sort, Math.max(remaining, 1), position);
+        if (remaining == 0) {
+            return CursorSlice.of(content, !values.isEmpty(), ScrollPosition.forward(last));
+        }
+        content.addAll(values.getContent());
+        if (!values.isEmpty()) {
+            last = ((KeysetScrollPosition) values.positionAt(values.size() - 1)).getKeys();
+        }
+        return CursorSlice.of(content, values.hasNext(), last == null ? null : ScrollPosition.forward(last));
+    }
+
+    // The id breaks ties in every sort, so a cursor must carry one (a crafted cursor may not)
+    private static KeysetScrollPosition withId(KeysetScrollPosition position) {
+        if (!position.isInitial() && !(position.getKeys().get(ID) instanceof Long)) {
+            throw new IllegalArgumentException("Invalid cursor: no id");
+        }
+        return position;
+    }
+
+    private static <T> Window<T> scroll(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                        Sort sort, int limit, KeysetScrollPosition position) {
+        return repository.findBy(spec, query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    private static <T> Specification<T> isNull(String property) {
+        return (root, query, cb) -> cb.isNull(root.get(property));
+    }
+
+    private static <T> Specification<T> isNotNull(String property) {
+        return (root, query, cb) -> cb.isNotNull(root.get(property));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Specification<T> atLeast(String property, Comparable value) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(property), value);
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.managment.repository;
+
+/**
+ * LIKE patterns for the repositories' text filters, to be used with ESCAPE '\'
+ * (cb.like(..., '\\') in a Specification) so % and _ typed by a user match literally.
+ */
+public final class LikePatterns {
+
+    private LikePatterns() {
+    }
+
+    // "Contains" pattern for a lower-cased column, with wildcards in the text escaped by '\'
+    public static String contains(String text) {
+        return "%" + text.trim().toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
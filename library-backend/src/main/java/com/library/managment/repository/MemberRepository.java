@@ -2,18 +2,68 @@ package com.library.managment.repository;
 
 import com.library.managment.model.Book;
 import com.library.managment.model.Member;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface MemberRepository extends JpaRepository<Member, Long> {
-    Page<Member> findByNameContainingIgnoreCase(String name, Pageable pageable);
+public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecificationExecutor<Member> {
     Page<Member> findByNameContainingIgnoreCaseAndIsActiveTrue(String name, Pageable pageable);
     List<Member> findByIsActiveTrue();
+
+    // Ids of members inside the library, one keyset page at a time (startup warmup)
+    @Query("SELECT m.id FROM Member m WHERE m.isActive = true AND m.id > :afterId ORDER BY m.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Id and name only, for the search index
+    record MemberName(Long id, String name) {
+    }
+
+    @Query("SELECT new com.library.managment.repository.MemberRepository$MemberName(m.id, m.name) "
+            + "FROM Member m WHERE m.id > :afterId ORDER BY m.id")
+    List<MemberName> findNamesAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Name contains the text, ignoring case (no restriction when blank); used with keyset scrolling
+    static Specification<Member> nameContains(String name) {
+        return (root, query, cb) -> name == null || name.isBlank() ? null
+                : cb.like(cb.lower(root.get("name")), LikePatterns.contains(name), '\\');
+    }
+
+    // Only members inside the library (no restriction when false)
+    static Specification<Member> activeOnly(boolean active) {
+        return (root, query, cb) -> active ? cb.isTrue(root.get("isActive")) : null;
+    }
+
     Page<Member> findByIsActiveTrue(Pageable pageable);
 
+    // Highest id in use, 0 when empty
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM Member m")
+    long findMaxId();
+
+    // Every member through a JDBC cursor, for exports (needs an open transaction)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT m FROM Member m ORDER BY m.id")
+    Stream<Member> streamAll();
+
+    // Nightly reset: one statement, touching only members still inside; returns the number of updated rows
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Member m SET m.isActive = false WHERE m.isActive = true")
+    int deactivateAll();
 
 
 
@@ -0,0 +1,47 @@
+package com.library.managment.repository;
+
+import com.library.managment.dto.ActivityView;
+import com.library.managment.model.ReadingActivityHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ReadingActivityHistoryRepository extends JpaRepository<ReadingActivityHistory, Long> {
+
+    // Returned loans as listed by the frontend, one joined query, by id after afterId (keyset page)
+    String VIEW = "SELECT new com.library.managment.dto.ActivityView(h.id, b.id, b.title, b.imageUrl, "
+            + "m.id, m.name, m.imageUrl, h.startTime, h.expectedEndTime, false) "
+            + "FROM ReadingActivityHistory h JOIN h.book b JOIN h.member m ";
+
+    @Query(VIEW + "WHERE h.id > :afterId ORDER BY h.id")
+    List<ActivityView> findViewsAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query(VIEW + "WHERE m.id = :memberId AND h.id > :afterId ORDER BY h.id")
+    List<ActivityView> findViewsByMemberAfter(@Param("memberId") Long memberId, @Param("afterId") long afterId,
+                                              Limit limit);
+
+    // Every archived loan with its book and member in the same row, through a JDBC cursor, for exports
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT h FROM ReadingActivityHistory h LEFT JOIN FETCH h.book LEFT JOIN FETCH h.member ORDER BY h.id")
+    Stream<ReadingActivityHistory> streamAll();
+
+
+    // Copy the given returned loans into the history (caller's transaction); returns the number of copied rows
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO ReadingActivityHistory (id, book, member, startTime, expectedEndTime, archivedAt) "
+            + "SELECT a.id, a.book, a.member, a.startTime, a.expectedEndTime, :archivedAt "
+            + "FROM ReadingActivity a WHERE a.id IN :ids AND a.isActive = false")
+    int copyReturned(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+}
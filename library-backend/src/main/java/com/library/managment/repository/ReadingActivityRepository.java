@@ -1,10 +1,21 @@
 package com.library.managment.repository;
 
+import com.library.managment.dto.ActivityView;
 import com.library.managment.model.ReadingActivity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ReadingActivityRepository extends JpaRepository<ReadingActivity, Long> {
     List<ReadingActivity> findByBookIdAndIsActiveTrue(Long bookId);
@@ -12,6 +23,51 @@ public interface ReadingActivityRepository extends JpaRepository<ReadingActivity
     boolean existsByMemberIdAndBookIdAndIsActiveTrue(Long memberId, Long bookId);
 
 
-    List<ReadingActivity> findByIsActiveTrueAndExpectedEndTimeBefore(LocalDateTime now);
+    // Id and due time of every open loan, without loading books or members
+    interface LoanDeadline {
+        Long getId();
+
+        LocalDateTime getExpectedEndTime();
+    }
+
+    @Query("SELECT a.id AS id, a.expectedEndTime AS expectedEndTime FROM ReadingActivity a WHERE a.isActive = true")
+    List<LoanDeadline> findActiveDeadlines();
+
+    // Activities as listed by the frontend: one joined query, no entities loaded
+    String VIEW = "SELECT new com.library.managment.dto.ActivityView(a.id, b.id, b.title, b.imageUrl, "
+            + "m.id, m.name, m.imageUrl, a.startTime, a.expectedEndTime, a.isActive) "
+            + "FROM ReadingActivity a JOIN a.book b JOIN a.member m ";
+
+    @Query(VIEW + "WHERE a.isActive = true ORDER BY a.id")
+    List<ActivityView> findActiveViews();
+
+    @Query(VIEW + "WHERE m.id = :memberId AND a.isActive = true ORDER BY a.id")
+    List<ActivityView> findActiveViewsByMember(@Param("memberId") Long memberId);
+
+    @Query(VIEW + "WHERE a.id IN :ids AND a.isActive = true")
+    List<ActivityView> findActiveViewsByIds(@Param("ids") Collection<Long> ids);
+
+    // Every activity with its book and member in the same row, through a JDBC cursor, for exports
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT a FROM ReadingActivity a LEFT JOIN FETCH a.book LEFT JOIN FETCH a.member ORDER BY a.id")
+    Stream<ReadingActivity> streamAll();
+
+
+    // Oldest returned loans, for the archive job
+    @Query("SELECT a.id FROM ReadingActivity a WHERE a.isActive = false ORDER BY a.id")
+    List<Long> findReturnedIds(Limit limit);
+
+    // Remove returned loans once copied to the history (caller's transaction); returns the number of deleted rows
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ReadingActivity a WHERE a.id IN :ids AND a.isActive = false")
+    int deleteReturned(@Param("ids") List<Long> ids);
+
+    // End an active loan; returns 0 if it was already returned (e.g. by another node)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReadingActivity a SET a.isActive = false WHERE a.id = :id AND a.isActive = true")
+    int deactivate(@Param("id") Long id);
 
 }
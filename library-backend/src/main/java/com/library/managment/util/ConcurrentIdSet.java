@@ -0,0 +1,95 @@
+package com.library.managment.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe set of database ids, stored as a lock-free bitset.
+ *
+ * Generated ids are dense, so one bit per id is far smaller than a set of boxed
+ * Longs and add/remove/contains allocate nothing. Bits live in 64k-id chunks that
+ * are allocated on first use; ids outside [0, 2^31) fall back to a regular set.
+ */
+public class ConcurrentIdSet {
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int WORDS_PER_CHUNK = 1 << (CHUNK_SHIFT - 6);
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final Set<Long> overflow = ConcurrentHashMap.newKeySet();
+
+    private static boolean inRange(long id) {
+        return id >= 0 && id < ((long) MAX_CHUNKS << CHUNK_SHIFT);
+    }
+
+    private static int word(long id) {
+        return (int) (id >>> 6) & (WORDS_PER_CHUNK - 1);
+    }
+
+    private AtomicLongArray chunk(long id, boolean create) {
+        int index = (int) (id >>> CHUNK_SHIFT);
+        AtomicLongArray chunk = chunks.get(index);
+        if (chunk == null && create) {
+            chunks.compareAndSet(index, null, new AtomicLongArray(WORDS_PER_CHUNK));
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+
+    public boolean add(long id) {
+        if (!inRange(id)) return overflow.add(id);
+
+        AtomicLongArray chunk = chunk(id, true);
+        int word = word(id);
+        long bit = 1L << id;
+        while (true) {
+            long bits = chunk.get(word);
+            if ((bits & bit) != 0) return false;
+            if (chunk.compareAndSet(word, bits, bits | bit)) return true;
+        }
+    }
+
+    public boolean remove(long id) {
+        if (!inRange(id)) return overflow.remove(id);
+
+        AtomicLongArray chunk = chunk(id, false);
+        if (chunk == null) return false;
+        int word = word(id);
+        long bit = 1L << id;
+        while (true) {
+            long bits = chunk.get(word);
+            if ((bits & bit) == 0) return false;
+            if (chunk.compareAndSet(word, bits, bits & ~bit)) return true;
+        }
+    }
+
+    public boolean contains(long id) {
+        if (!inRange(id)) return overflow.contains(id);
+
+        AtomicLongArray chunk = chunk(id, false);
+        return chunk != null && (chunk.get(word(id)) & (1L << id)) != 0;
+    }
+
+    // Counts the set bits: proportional to the highest id, meant for reporting
+    public int size() {
+        int size = overflow.size();
+        for (int i = 0; i < MAX_CHUNKS; i++) {
+            AtomicLongArray chunk = chunks.get(i);
+            if (chunk == null) continue;
+            for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+                size += Long.bitCount(chunk.get(w));
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < MAX_CHUNKS; i++) {
+            chunks.set(i, null);
+        }
+        overflow.clear();
+    }
+}
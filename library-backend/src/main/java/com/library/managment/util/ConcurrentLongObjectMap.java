@@ -0,0 +1,116 @@
+package com.library.managment.util;
+
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Thread-safe map from long to objects: a fixed number of {@link LongObjectHashMap}
+ * segments, each guarded by its own monitor. Lookups never box the key.
+ */
+public class ConcurrentLongObjectMap<V> {
+
+    private static final int SEGMENTS = 64;
+
+    private final LongObjectHashMap<V>[] segments;
+
+    public ConcurrentLongObjectMap() {
+        @SuppressWarnings("unchecked")
+        LongObjectHashMap<V>[] segments = (LongObjectHashMap<V>[]) new LongObjectHashMap<?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LongObjectHashMap<>();
+        }
+        this.segments = segments;
+    }
+
+    private LongObjectHashMap<V> segment(long key) {
+        return segments[(HashSupport.mix(key) >>> 26) & (SEGMENTS - 1)];
+    }
+
+    public V get(long key) {
+        LongObjectHashMap<V> segment = segment(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        LongObjectHashMap<V> segment = segment(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    // Stores the value only if the key is absent; returns the existing value, or null if stored
+    public V putIfAbsent(long key, V value) {
+        LongObjectHashMap<V> segment = segment(key);
+        synchronized (segment) {
+            V existing = segment.get(key);
+            if (existing == null) segment.put(key, value);
+            return existing;
+        }
+    }
+
+    public V computeIfAbsent(long key, LongFunction<V> factory) {
+        LongObjectHashMap<V> segment = segment(key);
+        synchronized (segment) {
+            return segment.computeIfAbsent(key, factory);
+        }
+    }
+
+    public V remove(long key) {
+        LongObjectHashMap<V> segment = segment(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    // Visits every value, one segment at a time
+    public void forEachValue(Consumer<? super V> action) {
+        for (LongObjectHashMap<V> segment : segments) {
+            synchronized (segment) {
+                segment.forEachValue(action);
+            }
+        }
+    }
+
+    // Copy of the keys, one segment at a time (not an atomic snapshot of the whole map)
+    public long[] keys() {
+        long[][] parts = new long[SEGMENTS][];
+        int total = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            synchronized (segments[i]) {
+                parts[i] = segments[i].keys();
+            }
+            total += parts[i].length;
+        }
+        long[] result = new long[total];
+        int n = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, result, n, part.length);
+            n += part.length;
+        }
+        return result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongObjectHashMap<V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (LongObjectHashMap<V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.managment.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated records one at a time (RFC 4180): fields may be quoted, quoted
+ * fields may hold commas, line breaks and doubled quotes. Lines end with LF or CRLF.
+ *
+ * Only the record being read is kept in memory. Not thread-safe.
+ */
+public class CsvReader {
+
+    private final Reader in;
+    private final StringBuilder field = new StringBuilder();
+    private int next;
+    private long line = 1;
+
+    public CsvReader(Reader in) throws IOException {
+        this.in = in;
+        this.next = in.read();
+        skipBlankLines();
+    }
+
+    // Line where the next record starts (1-based)
+    public long line() {
+        return line;
+    }
+
+    // Fields of the next record, or null at the end of the input; blank lines are skipped
+    public String[] next() throws IOException {
+        if (next == -1) return null;
+
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            field.setLength(0);
+            if (next == '"') {
+                readQuoted();
+            } else {
+                while (next != ',' && next != '\n' && next != '\r' && next != -1) {
+                    field.append((char) next);
+                    advance();
+                }
+            }
+            fields.add(field.toString());
+
+            if (next == ',') {
+                advance();
+                continue;
+            }
+            skipBlankLines();
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    private void readQuoted() throws IOException {
+        long start = line;
+        advance();
+        while (true) {
+            if (next == -1) throw new IOException("Unterminated quoted field starting at line " + start);
+            if (next == '"') {
+                advance();
+                if (next != '"') break;
+            }
+            field.append((char) next);
+            advance();
+        }
+        if (next != ',' && next != '\n' && next != '\r' && next != -1) {
+            throw new IOException("Unexpected character after quoted field at line " + line);
+        }
+    }
+
+    // End of the current line and any blank lines after it
+    private void skipBlankLines() throws IOException {
+        while (next == '\r' || next == '\n') advance();
+    }
+
+    private void advance() throws IOException {
+        if (next == '\n') line++;
+        next = in.read();
+    }
+}
@@ -0,0 +1,200 @@
+package com.library.managment.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe cache from long ids to values, bounded in size and in age.
+ *
+ * Entries live in a fixed number of segments, each an access-ordered map guarded by its
+ * own monitor: a full segment drops its least recently used entry, and an entry older
+ * than the time to live is dropped when it is next read. Loads run outside the monitor.
+ *
+ * A value loaded while its segment was invalidated is returned but not stored, so an
+ * invalidation that follows a write is never undone by a load that read the old row.
+ */
+public class ExpiringLruCache<V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<V>[] segments;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringLruCache(int maxSize, long ttlNanos) {
+        this(maxSize, ttlNanos, System::nanoTime);
+    }
+
+    public ExpiringLruCache(int maxSize, long ttlNanos, LongSupplier nanoClock) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive");
+        if (ttlNanos <= 0) throw new IllegalArgumentException("ttl must be positive");
+        this.ttlNanos = ttlNanos;
+        this.nanoClock = nanoClock;
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        @SuppressWarnings("unchecked")
+        Segment<V>[] segments = (Segment<V>[]) new Segment<?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+        this.segments = segments;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment<V> extends LinkedHashMap<Long, Entry<V>> {
+        // Never serialized, declared only because LinkedHashMap is Serializable
+        private static final long serialVersionUID = 1L;
+
+        final int capacity;
+        // Bumped by every invalidation, so loads that overlapped one are not stored
+        long generation;
+        boolean evicted;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry<V>> eldest) {
+            evicted = size() > capacity;
+            return evicted;
+        }
+    }
+
+    private Segment<V> segment(long key) {
+        return segments[(HashSupport.mix(key) >>> 28) & (SEGMENTS - 1)];
+    }
+
+    // Cached value, or null when absent or expired
+    public V getIfPresent(long key) {
+        Segment<V> segment = segment(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry != null && entry.expiresAt - nanoClock.getAsLong() > 0) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                segment.remove(key);
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+    }
+
+    // Cached value, or the loaded one (not stored when the loader returns null)
+    public V get(long key, LongFunction<V> loader) {
+        Segment<V> segment = segment(key);
+        long generation;
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry != null && entry.expiresAt - nanoClock.getAsLong() > 0) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                segment.remove(key);
+                evictions.increment();
+            }
+            misses.increment();
+            generation = segment.generation;
+        }
+
+        V value = loader.apply(key);
+        if (value == null) return null;
+
+        synchronized (segment) {
+            if (segment.generation == generation) store(segment, key, value);
+        }
+        return value;
+    }
+
+    public void put(long key, V value) {
+        Segment<V> segment = segment(key);
+        synchronized (segment) {
+            store(segment, key, value);
+        }
+    }
+
+    private void store(Segment<V> segment, long key, V value) {
+        segment.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+        if (segment.evicted) {
+            segment.evicted = false;
+            evictions.increment();
+        }
+    }
+
+    public void invalidate(long key) {
+        Segment<V> segment = segment(key);
+        synchronized (segment) {
+            segment.generation++;
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                segment.generation++;
+                segment.clear();
+            }
+        }
+    }
+
+    // Drops expired entries now instead of on their next read
+    public void cleanUp() {
+        long now = nanoClock.getAsLong();
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                Iterator<Entry<V>> it = segment.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().expiresAt - now <= 0) {
+                        it.remove();
+                        evictions.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // Entries dropped for size or age (not invalidations)
+    public long evictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,21 @@
+package com.library.managment.util;
+
+// Hashing helpers shared by the primitive collections
+final class HashSupport {
+
+    private HashSupport() {
+    }
+
+    // Spread sequential ids over the whole table (Fibonacci hashing)
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Power-of-two table size keeping the load factor at or below 1/2
+    static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 1)) << 1;
+        if (capacity < 0) throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        return capacity;
+    }
+}
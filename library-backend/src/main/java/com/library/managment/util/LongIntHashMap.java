@@ -0,0 +1,145 @@
+package com.library.managment.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long to int, without boxing.
+ *
+ * Linear probing with backward-shift deletion (no tombstones), so lookups,
+ * inserts and removals allocate nothing once the table is large enough.
+ * Key 0 is stored outside the table because 0 marks a free slot.
+ *
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(HashSupport.capacityFor(Math.max(expectedSize, MIN_CAPACITY)));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public int get(long key, int missingValue) {
+        if (key == 0) return hasZeroKey ? zeroValue : missingValue;
+        for (int i = HashSupport.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == 0) return missingValue;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZeroKey;
+        for (int i = HashSupport.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return true;
+            if (k == 0) return false;
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int i = HashSupport.mix(key) & mask;
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > (mask + 1) / 2) rehash((mask + 1) * 2);
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) return false;
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        for (int i = HashSupport.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == 0) return false;
+            if (k == key) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    // Close the gap left at slot so every following key stays reachable from its home slot
+    private void shiftBack(int gap) {
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = HashSupport.mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == 0) continue;
+            int i = HashSupport.mix(key) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZeroKey) result[n++] = 0;
+        for (long key : keys) {
+            if (key != 0) result[n++] = key;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,148 @@
+package com.library.managment.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Open-addressing map from long to objects, without boxing the keys.
+ * Same layout as {@link LongIntHashMap}; a null value marks a free slot,
+ * so null values are not allowed.
+ *
+ * Not thread-safe.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] keys;
+    private V[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(HashSupport.capacityFor(Math.max(expectedSize, MIN_CAPACITY)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    public V get(long key) {
+        for (int i = HashSupport.mix(key) & mask; ; i = (i + 1) & mask) {
+            V value = values[i];
+            if (value == null) return null;
+            if (keys[i] == key) return value;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    // Returns the previous value, or null
+    public V put(long key, V value) {
+        if (value == null) throw new NullPointerException("null values are not supported");
+        int i = HashSupport.mix(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > (mask + 1) / 2) rehash((mask + 1) * 2);
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    // Returns the removed value, or null
+    public V remove(long key) {
+        for (int i = HashSupport.mix(key) & mask; ; i = (i + 1) & mask) {
+            V value = values[i];
+            if (value == null) return null;
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return value;
+            }
+        }
+    }
+
+    private void shiftBack(int gap) {
+        for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = HashSupport.mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == null) continue;
+            int i = HashSupport.mix(oldKeys[j]) & mask;
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (V value : values) {
+            if (value != null) action.accept(value);
+        }
+    }
+
+    public void forEach(ObjLongConsumer<? super V> action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) action.accept(values[i], keys[i]);
+        }
+    }
+
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) result[n++] = keys[i];
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+}
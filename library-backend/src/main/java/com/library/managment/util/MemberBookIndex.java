@@ -0,0 +1,240 @@
+package com.library.managment.util;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe (memberId, bookId) -> int table indexed by member.
+ *
+ * Each pair is packed into one long (member in the high half, book in the low half)
+ * and stored in an open-addressing table, so lookups allocate nothing. The slot is
+ * chosen from the member half only: all entries of a member sit in the same probe
+ * run and can be listed or dropped without looking at anyone else's entries.
+ * Members are spread over segments guarded by their own monitor.
+ *
+ * Ids must fit in 32 bits.
+ */
+public class MemberBookIndex {
+
+    private static final int SEGMENTS = 64;
+    private static final long MAX_ID = 0xFFFFFFFFL;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public MemberBookIndex() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private static long pack(long memberId, long bookId) {
+        if (memberId < 0 || memberId > MAX_ID || bookId < 0 || bookId > MAX_ID) {
+            throw new IllegalArgumentException("Id out of range: member " + memberId + ", book " + bookId);
+        }
+        return memberId << 32 | bookId;
+    }
+
+    private Segment segment(long memberId) {
+        return segments[(HashSupport.mix(memberId) >>> 26) & (SEGMENTS - 1)];
+    }
+
+    public void put(long memberId, long bookId, int value) {
+        long key = pack(memberId, bookId);
+        Segment segment = segment(memberId);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public int getOrDefault(long memberId, long bookId, int defaultValue) {
+        long key = pack(memberId, bookId);
+        Segment segment = segment(memberId);
+        synchronized (segment) {
+            return segment.get(key, defaultValue);
+        }
+    }
+
+    public boolean remove(long memberId, long bookId) {
+        long key = pack(memberId, bookId);
+        Segment segment = segment(memberId);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    public void removeMember(long memberId) {
+        pack(memberId, 0);
+        Segment segment = segment(memberId);
+        synchronized (segment) {
+            segment.removeMember(memberId);
+        }
+    }
+
+    // Copy of the member's book ids (empty if none)
+    public long[] books(long memberId) {
+        pack(memberId, 0);
+        Segment segment = segment(memberId);
+        synchronized (segment) {
+            return segment.books(memberId);
+        }
+    }
+
+    // Number of (member, book) entries
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Linear probing over packed keys, homed by member, with backward-shift deletion.
+     * The packed key 0 (member 0, book 0) is kept outside the table because 0 marks a free slot.
+     */
+    private static final class Segment {
+
+        private static final int MIN_CAPACITY = 16;
+
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        private boolean hasZeroKey;
+        private int zeroValue;
+
+        Segment() {
+            allocate(MIN_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private int home(long key) {
+            return HashSupport.mix(key >>> 32) & mask;
+        }
+
+        int get(long key, int missingValue) {
+            if (key == 0) return hasZeroKey ? zeroValue : missingValue;
+            for (int i = home(key); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) return values[i];
+                if (k == 0) return missingValue;
+            }
+        }
+
+        void put(long key, int value) {
+            if (key == 0) {
+                if (!hasZeroKey) size++;
+                hasZeroKey = true;
+                zeroValue = value;
+                return;
+            }
+            int i = home(key);
+            for (; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size > (mask + 1) / 2) rehash((mask + 1) * 2);
+        }
+
+        boolean remove(long key) {
+            if (key == 0) {
+                if (!hasZeroKey) return false;
+                hasZeroKey = false;
+                size--;
+                return true;
+            }
+            for (int i = home(key); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == 0) return false;
+                if (k == key) {
+                    shiftBack(i);
+                    size--;
+                    return true;
+                }
+            }
+        }
+
+        // The member's entries all lie in the run starting at their home slot
+        void removeMember(long memberId) {
+            if (memberId == 0 && hasZeroKey) {
+                hasZeroKey = false;
+                size--;
+            }
+            int i = HashSupport.mix(memberId) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] >>> 32 == memberId) {
+                    // The next entry may be shifted into slot i: look at it again
+                    shiftBack(i);
+                    size--;
+                } else {
+                    i = (i + 1) & mask;
+                }
+            }
+        }
+
+        long[] books(long memberId) {
+            long[] books = new long[4];
+            int n = 0;
+            if (memberId == 0 && hasZeroKey) books[n++] = 0;
+            for (int i = HashSupport.mix(memberId) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] >>> 32 != memberId) continue;
+                if (n == books.length) books = Arrays.copyOf(books, n * 2);
+                books[n++] = keys[i] & MAX_ID;
+            }
+            return Arrays.copyOf(books, n);
+        }
+
+        // Close the gap left at slot so every following key stays reachable from its home slot
+        private void shiftBack(int gap) {
+            for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                int home = home(keys[i]);
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            keys[gap] = 0;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(capacity);
+            for (int j = 0; j < oldKeys.length; j++) {
+                long key = oldKeys[j];
+                if (key == 0) continue;
+                int i = home(key);
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+
+        void clear() {
+            allocate(MIN_CAPACITY);
+            hasZeroKey = false;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.library.managment.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of long ids with deadlines, without boxing.
+ *
+ * Time is cut into ticks. Level 0 has one slot per tick for the current block of
+ * 64 ticks, level 1 one slot per 64 ticks for the current block of 64^2, and so on;
+ * deadlines beyond the top level wait in an overflow list. When the clock enters a
+ * new block, the matching higher-level slot is moved one level down. Scheduling and
+ * cancelling are O(1), and every entry moves down at most LEVELS times before it
+ * fires, so advancing costs O(1) per tick plus O(1) per entry moved or fired.
+ *
+ * Entries are nodes in parallel arrays, doubly linked into their slot by index.
+ *
+ * Not thread-safe.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW = LEVELS * SLOTS;
+    private static final int NIL = -1;
+
+    private final long tickMillis;
+    private long currentTick;
+
+    // First node of each slot, then of the overflow list
+    private final int[] heads = new int[OVERFLOW + 1];
+
+    // Node pool: id, deadline tick, links and the slot the node is in
+    private long[] ids = new long[16];
+    private long[] deadlines = new long[16];
+    private int[] next = new int[16];
+    private int[] prev = new int[16];
+    private int[] slots = new int[16];
+    private int used;
+    private int free = NIL;
+
+    // id -> node
+    private final LongIntHashMap nodes = new LongIntHashMap();
+
+
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, got " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+        Arrays.fill(heads, NIL);
+    }
+
+
+    /**
+     * Fire id at the first tick at or after deadlineMillis (replacing an earlier deadline).
+     * A deadline that has already passed fires on the next tick.
+     */
+    public void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        int node = allocate();
+        ids[node] = id;
+        deadlines[node] = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        nodes.put(id, node);
+        insert(node);
+    }
+
+
+    public boolean cancel(long id) {
+        int node = nodes.get(id, NIL);
+        if (node == NIL) return false;
+        nodes.remove(id);
+        unlink(node);
+        release(node);
+        return true;
+    }
+
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+
+    public int size() {
+        return nodes.size();
+    }
+
+
+    /**
+     * Moves the clock to nowMillis, passing every id whose deadline is reached to expired
+     * (in deadline order). Returns the number of ids fired.
+     */
+    public int advance(long nowMillis, LongConsumer expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        int fired = 0;
+        while (currentTick < target) {
+            if (nodes.isEmpty()) {
+                // Nothing can be placed relative to the old time: jump
+                currentTick = target;
+                break;
+            }
+            long tick = ++currentTick;
+
+            // Higher levels first, so their entries can drop all the way to this tick's slot
+            if ((tick & mask(LEVELS)) == 0) cascade(OVERFLOW);
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((tick & mask(level)) == 0) cascade(level * SLOTS + slotIndex(tick, level));
+            }
+
+            int slot = slotIndex(tick, 0);
+            for (int node = heads[slot]; node != NIL; ) {
+                int following = next[node];
+                long id = ids[node];
+                nodes.remove(id);
+                release(node);
+                expired.accept(id);
+                fired++;
+                node = following;
+            }
+            heads[slot] = NIL;
+        }
+        return fired;
+    }
+
+
+    // Low bits of a tick that count positions inside one slot of the given level
+    private static long mask(int level) {
+        return (1L << (SLOT_BITS * level)) - 1;
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+
+    // Lowest level whose current block contains the deadline
+    private void insert(int node) {
+        long deadline = deadlines[node];
+        int slot = OVERFLOW;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if (deadline >>> shift == currentTick >>> shift) {
+                slot = level * SLOTS + slotIndex(deadline, level);
+                break;
+            }
+        }
+        slots[node] = slot;
+        prev[node] = NIL;
+        next[node] = heads[slot];
+        if (heads[slot] != NIL) prev[heads[slot]] = node;
+        heads[slot] = node;
+    }
+
+    // Re-insert every entry of a slot relative to the current tick
+    private void cascade(int slot) {
+        int node = heads[slot];
+        heads[slot] = NIL;
+        while (node != NIL) {
+            int following = next[node];
+            insert(node);
+            node = following;
+        }
+    }
+
+    private void unlink(int node) {
+        if (prev[node] != NIL) {
+            next[prev[node]] = next[node];
+        } else {
+            heads[slots[node]] = next[node];
+        }
+        if (next[node] != NIL) prev[next[node]] = prev[node];
+    }
+
+    private int allocate() {
+        if (free != NIL) {
+            int node = free;
+            free = next[node];
+            return node;
+        }
+        if (used == ids.length) {
+            int capacity = used * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        return used++;
+    }
+
+    private void release(int node) {
+        next[node] = free;
+        free = node;
+    }
+}
@@ -0,0 +1,161 @@
+package com.library.managment.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Case-insensitive substring search over short texts (titles, names), by id.
+ *
+ * Every run of three characters of a lower-cased text is a trigram, packed into a long;
+ * each trigram maps to the sorted ids of the texts containing it. A query of three
+ * characters or more intersects the lists of its own trigrams, smallest first, and checks
+ * the few candidates left against their text. Shorter queries scan the texts.
+ *
+ * Ids must be in [0, 2^31). Not thread-safe.
+ */
+public class TrigramIndex {
+
+    private static final long[] NONE = new long[0];
+
+    // id -> lower-cased text
+    private final LongObjectHashMap<String> texts;
+    // trigram -> ids of the texts containing it
+    private final LongObjectHashMap<Postings> postings = new LongObjectHashMap<>();
+
+    public TrigramIndex() {
+        this(16);
+    }
+
+    public TrigramIndex(int expectedSize) {
+        texts = new LongObjectHashMap<>(expectedSize);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int at) {
+        return (long) text.charAt(at) << 32 | (long) text.charAt(at + 1) << 16 | text.charAt(at + 2);
+    }
+
+    // Index text under id, replacing its previous text; a null text removes it
+    public void put(long id, String text) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Id out of range: " + id);
+        }
+        if (text == null) {
+            remove(id);
+            return;
+        }
+        String normalized = normalize(text);
+        String previous = texts.put(id, normalized);
+        if (normalized.equals(previous)) return;
+        if (previous != null) unlink(id, previous);
+
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            postings.computeIfAbsent(trigram(normalized, i), t -> new Postings()).add((int) id);
+        }
+    }
+
+    public void remove(long id) {
+        String previous = texts.remove(id);
+        if (previous != null) unlink(id, previous);
+    }
+
+    private void unlink(long id, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long trigram = trigram(text, i);
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove((int) id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    // Ids of the texts containing query, ignoring case, in ascending order
+    public long[] search(String query) {
+        String q = normalize(query);
+        if (q.length() < 3) return scan(q);
+
+        // Distinct trigrams of the query, smallest list first
+        Postings[] lists = new Postings[q.length() - 2];
+        int n = 0;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            Postings list = postings.get(trigram(q, i));
+            if (list == null) return NONE;
+            boolean seen = false;
+            for (int j = 0; j < n && !seen; j++) seen = lists[j] == list;
+            if (!seen) lists[n++] = list;
+        }
+        Arrays.sort(lists, 0, n, (a, b) -> Integer.compare(a.size, b.size));
+
+        Postings smallest = lists[0];
+        long[] result = new long[smallest.size];
+        int found = 0;
+        for (int k = 0; k < smallest.size; k++) {
+            int id = smallest.ids[k];
+            boolean inAll = true;
+            for (int j = 1; j < n && inAll; j++) inAll = lists[j].contains(id);
+            // Trigrams in the right order, not only present
+            if (inAll && texts.get(id).contains(q)) result[found++] = id;
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    private long[] scan(String q) {
+        long[][] found = {new long[16]};
+        int[] n = {0};
+        texts.forEach((text, id) -> {
+            if (!text.contains(q)) return;
+            if (n[0] == found[0].length) found[0] = Arrays.copyOf(found[0], n[0] * 2);
+            found[0][n[0]++] = id;
+        });
+        long[] result = Arrays.copyOf(found[0], n[0]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    public void clear() {
+        texts.clear();
+        postings.clear();
+    }
+
+    // Sorted ids; generated ids mostly arrive in increasing order and are appended
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) return;
+                insert(-at - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        private void insert(int at, int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return false;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
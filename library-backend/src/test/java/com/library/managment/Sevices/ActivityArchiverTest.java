@@ -0,0 +1,99 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.dto.ActivityView;
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.ReadingActivityHistoryRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Small batches, so one run needs several transactions
+@SpringBootTest(properties = "library.archive.batch-size=2")
+class ActivityArchiverTest {
+
+	@Autowired
+	private LibraryService libraryService;
+	@Autowired
+	private ActivityArchiver activityArchiver;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private ReadingActivityRepository readingActivityRepository;
+	@Autowired
+	private ReadingActivityHistoryRepository historyRepository;
+
+	@BeforeEach
+	@AfterEach
+	void cleanUp() {
+		libraryService.resetLibraryMemory();
+		historyRepository.deleteAll();
+		readingActivityRepository.deleteAll();
+		bookRepository.deleteAll();
+		memberRepository.deleteAll();
+	}
+
+	private Book book(String title) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		return bookRepository.save(book);
+	}
+
+	@Test
+	void returnedLoansMoveToTheHistoryAndOpenOnesStay() {
+		Member reader = new Member();
+		reader.setName("reader");
+		reader = memberRepository.save(reader);
+		libraryService.userEntersLibrary(reader.getId());
+
+		List<Long> returned = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Book book = book("Book " + i);
+			libraryService.requestBook(reader.getId(), book.getId(), 2);
+			Long activityId = readingActivityRepository.findActiveViewsByMember(reader.getId()).get(0).id();
+			libraryService.returnBook(activityId);
+			returned.add(activityId);
+		}
+		Book open = book("Open");
+		libraryService.requestBook(reader.getId(), open.getId(), 2);
+
+		assertEquals(5, activityArchiver.archiveReturnedLoans());
+		assertEquals(0, activityArchiver.archiveReturnedLoans());
+
+		// Only the open loan is left in the loan table
+		assertEquals(1, readingActivityRepository.count());
+		List<ActivityView> hot = readingActivityRepository.findActiveViews();
+		assertEquals(1, hot.size());
+		assertEquals("Open", hot.get(0).book().title());
+		assertTrue(readingActivityRepository.existsByMemberIdAndBookIdAndIsActiveTrue(reader.getId(), open.getId()));
+
+		// The history keeps ids, books and members, one keyset page at a time
+		List<ActivityView> firstPage = historyRepository.findViewsByMemberAfter(reader.getId(), 0, Limit.of(3));
+		List<ActivityView> secondPage = historyRepository.findViewsAfter(firstPage.get(2).id(), Limit.of(3));
+		List<Long> ids = new ArrayList<>();
+		for (ActivityView view : firstPage) ids.add(view.id());
+		for (ActivityView view : secondPage) ids.add(view.id());
+		assertEquals(returned, ids);
+		assertEquals("Book 0", firstPage.get(0).book().title());
+		assertEquals("reader", firstPage.get(0).member().name());
+		assertFalse(firstPage.get(0).active());
+
+		// The book can be borrowed again once its loan was archived
+		assertTrue(libraryService.requestBook(reader.getId(), bookRepository.findAll().get(0).getId(), 2).isSuccess());
+	}
+}
@@ -0,0 +1,39 @@
+package com.library.managment.Sevices;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationTrackerTest {
+
+	@Test
+	void storesDurationPerBookAndMember() {
+		DurationTracker tracker = new DurationTracker();
+		tracker.put(1L, 10L, 4);
+		tracker.put(2L, 10L, 6);
+		tracker.put(1L, 20L, 8);
+
+		assertEquals(4, tracker.getOrDefault(1L, 10L, 1));
+		assertEquals(6, tracker.getOrDefault(2L, 10L, 1));
+		assertEquals(1, tracker.getOrDefault(2L, 20L, 1));
+		assertEquals(3, tracker.size());
+
+		tracker.remove(1L, 10L);
+		assertEquals(1, tracker.getOrDefault(1L, 10L, 1));
+		assertEquals(2, tracker.size());
+	}
+
+	@Test
+	void removeMemberOnlyDropsTheirEntries() {
+		DurationTracker tracker = new DurationTracker();
+		tracker.put(1L, 10L, 4);
+		tracker.put(2L, 10L, 6);
+		tracker.put(1L, 20L, 8);
+
+		tracker.removeMember(10L);
+		assertEquals(1, tracker.size());
+		assertEquals(8, tracker.getOrDefault(1L, 20L, 1));
+		assertEquals(1, tracker.getOrDefault(2L, 10L, 1));
+	}
+
+}
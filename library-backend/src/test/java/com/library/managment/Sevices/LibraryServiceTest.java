@@ -0,0 +1,416 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.dto.ActivityView;
+import com.library.managment.dto.BookBorrowResponse;
+import com.library.managment.dto.BorrowRequest;
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.model.Notification;
+import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LibraryServiceTest {
+
+	@Autowired
+	private LibraryService libraryService;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private ReadingActivityRepository readingActivityRepository;
+	@Autowired
+	private OverdueLoans overdueLoans;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void cleanUp() {
+		libraryService.resetLibraryMemory();
+		readingActivityRepository.deleteAll();
+		bookRepository.deleteAll();
+		memberRepository.deleteAll();
+	}
+
+	private Book book(int copies) {
+		Book book = new Book();
+		book.setTitle("Dune");
+		book.setAuthor("Frank Herbert");
+		book.setTotalCopies(copies);
+		book.setAvailableCopies(copies);
+		return bookRepository.save(book);
+	}
+
+	private Member member(String name) {
+		Member member = new Member();
+		member.setName(name);
+		member = memberRepository.save(member);
+		libraryService.userEntersLibrary(member.getId());
+		return member;
+	}
+
+	private List<Long> notifiedMembers() {
+		return libraryService.getAdminNotifications().stream()
+				.map(n -> n.getMember().getId())
+				.toList();
+	}
+
+	// The wheel ticks in the background: wait until the overdue list has the expected size
+	private List<ActivityView> awaitOverdue(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (overdueLoans.list().size() != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		return overdueLoans.list();
+	}
+
+	private void returnLoanOf(Member member) {
+		Long activityId = readingActivityRepository.findByMemberIdAndIsActiveTrue(member.getId()).get(0).getId();
+		libraryService.returnBook(activityId);
+	}
+
+	@Test
+	void queuedMembersGetRankAndAreNotifiedWhenCopyReturns() {
+		Book book = book(1);
+		Member reader = member("reader");
+		Member m1 = member("m1"), m2 = member("m2"), m3 = member("m3"), m4 = member("m4");
+
+		assertTrue(libraryService.requestBook(reader.getId(), book.getId(), 2).isSuccess());
+		for (Member m : List.of(m1, m2, m3, m4)) {
+			BookBorrowResponse response = libraryService.requestBook(m.getId(), book.getId(), 3);
+			assertFalse(response.isSuccess());
+		}
+		assertEquals(4L, libraryService.requestBook(m4.getId(), book.getId(), 3).getRank());
+		assertEquals(2L, libraryService.getQueueRank(m2.getId(), book.getId()));
+		assertEquals(0L, libraryService.getQueueRank(reader.getId(), book.getId()));
+
+		// No copy available: nobody is notified
+		assertTrue(libraryService.getAdminNotifications().isEmpty());
+
+		returnLoanOf(reader);
+		assertEquals(List.of(m1.getId(), m2.getId(), m3.getId()), notifiedMembers());
+
+		Notification first = libraryService.getAdminNotifications().get(0);
+		assertEquals(book.getId(), first.getBook().getId());
+		assertEquals(3, first.getDuration());
+
+		// Polls without changes in between share one list
+		assertSame(libraryService.getAdminNotifications(), libraryService.getAdminNotifications());
+	}
+
+	@Test
+	void leavingOrApprovedMembersAreReplacedInNotifications() {
+		Book book = book(1);
+		Member reader = member("reader");
+		Member m1 = member("m1"), m2 = member("m2"), m3 = member("m3"), m4 = member("m4");
+
+		libraryService.requestBook(reader.getId(), book.getId(), 2);
+		for (Member m : List.of(m1, m2, m3, m4)) {
+			libraryService.requestBook(m.getId(), book.getId(), 2);
+		}
+		returnLoanOf(reader);
+
+		libraryService.userLeavesLibrary(m2.getId());
+		assertEquals(List.of(m1.getId(), m3.getId(), m4.getId()), notifiedMembers());
+
+		// Last copy goes to m3: notifications are cleared
+		Notification published = libraryService.getAdminNotifications().get(0);
+		assertTrue(libraryService.approveNextReader(book.getId(), m3.getId()).isSuccess());
+		assertTrue(libraryService.getAdminNotifications().isEmpty());
+		// What was already published does not change
+		assertEquals(1, published.getBook().getAvailableCopies());
+		assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+	}
+
+	@Test
+	void deletedMembersAreEvictedFromQueue() {
+		Book book = book(1);
+		Member reader = member("reader");
+		Member m1 = member("m1"), m2 = member("m2");
+
+		libraryService.requestBook(reader.getId(), book.getId(), 2);
+		libraryService.requestBook(m1.getId(), book.getId(), 2);
+		libraryService.requestBook(m2.getId(), book.getId(), 2);
+		memberRepository.deleteById(m1.getId());
+		libraryService.memberDeleted(m1.getId());
+
+		returnLoanOf(reader);
+		assertEquals(List.of(m2.getId()), notifiedMembers());
+		// m2 is now first in line and gets the copy directly
+		assertTrue(libraryService.requestBook(m2.getId(), book.getId(), 2).isSuccess());
+	}
+
+	@Test
+	void copiesAreTakenAndGivenBackOnlyWithinBounds() {
+		Book book = book(1);
+
+		assertEquals(1, bookRepository.decrementAvailableCopies(book.getId()));
+		assertEquals(0, bookRepository.decrementAvailableCopies(book.getId()));
+		assertEquals(1, bookRepository.incrementAvailableCopies(book.getId()));
+		assertEquals(0, bookRepository.incrementAvailableCopies(book.getId()));
+		assertEquals(1, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+	}
+
+	@Test
+	void returningTheSameLoanTwiceGivesOneCopyBack() {
+		Book book = book(2);
+		Member reader = member("reader"), other = member("other");
+
+		assertTrue(libraryService.requestBook(reader.getId(), book.getId(), 2).isSuccess());
+		assertTrue(libraryService.requestBook(other.getId(), book.getId(), 2).isSuccess());
+		Long activityId = readingActivityRepository.findByMemberIdAndIsActiveTrue(reader.getId()).get(0).getId();
+
+		libraryService.returnBook(activityId);
+		libraryService.returnBook(activityId);
+		assertEquals(1, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+	}
+
+	@Test
+	void copyTakenByAnotherNodeQueuesTheMemberInstead() {
+		Book book = book(2);
+		Member reader = member("reader"), late = member("late");
+
+		assertTrue(libraryService.requestBook(reader.getId(), book.getId(), 2).isSuccess());
+		// Another node lends the last copy: this node still counts one
+		assertEquals(1, bookRepository.decrementAvailableCopies(book.getId()));
+
+		BookBorrowResponse response = libraryService.requestBook(late.getId(), book.getId(), 2);
+		assertFalse(response.isSuccess());
+		assertEquals(1L, response.getRank());
+		assertTrue(readingActivityRepository.findByMemberIdAndIsActiveTrue(late.getId()).isEmpty());
+		assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+	}
+
+	@Test
+	void copiesAddedByAnAdminAreNotifiedAfterBookChanged() {
+		Book book = book(1);
+		Member reader = member("reader"), m1 = member("m1");
+
+		libraryService.requestBook(reader.getId(), book.getId(), 2);
+		libraryService.requestBook(m1.getId(), book.getId(), 2);
+		assertTrue(libraryService.getAdminNotifications().isEmpty());
+
+		book.setTotalCopies(2);
+		book.setAvailableCopies(1);
+		bookRepository.save(book);
+		libraryService.bookChanged(book.getId());
+
+		assertEquals(List.of(m1.getId()), notifiedMembers());
+		assertEquals(1, libraryService.getAdminNotifications().get(0).getBook().getAvailableCopies());
+	}
+
+	@Test
+	void nightlyResetMarksEveryoneInactiveAndClearsQueues() {
+		Book book = book(1);
+		Member reader = member("reader"), m1 = member("m1");
+		Member outside = libraryService.setMemberActive(member("outside"), false);
+
+		libraryService.requestBook(reader.getId(), book.getId(), 2);
+		libraryService.requestBook(m1.getId(), book.getId(), 2);
+
+		libraryService.resetLibraryMemory();
+
+		assertTrue(memberRepository.findByIsActiveTrue().isEmpty());
+		assertFalse(memberRepository.findById(outside.getId()).orElseThrow().getActive());
+		assertEquals(0L, libraryService.getQueueRank(m1.getId(), book.getId()));
+		assertEquals("User not in library", libraryService.requestBook(m1.getId(), book.getId(), 2).getMessage());
+
+		// Entering again works as usual on the new day
+		libraryService.setMemberActive(m1, true);
+		assertTrue(memberRepository.findById(m1.getId()).orElseThrow().getActive());
+		assertFalse(libraryService.requestBook(m1.getId(), book.getId(), 2).isSuccess());
+		assertEquals(1L, libraryService.getQueueRank(m1.getId(), book.getId()));
+	}
+
+	@Test
+	void loansPastTheirDueTimeAreListedUntilReturned() throws InterruptedException {
+		Book book = book(2);
+		Member late = member("late"), onTime = member("onTime");
+		libraryService.requestBook(late.getId(), book.getId(), 2);
+		libraryService.requestBook(onTime.getId(), book.getId(), 2);
+
+		// Move one due time into the past
+		ReadingActivity loan = readingActivityRepository.findByMemberIdAndIsActiveTrue(late.getId()).get(0);
+		overdueLoans.loanStarted(loan.getId(), LocalDateTime.now().minusMinutes(1));
+
+		List<ActivityView> overdue = awaitOverdue(1);
+		assertEquals(1, overdue.size());
+		assertEquals(loan.getId(), overdue.get(0).id());
+		assertEquals(late.getId(), overdue.get(0).member().id());
+		// Without auto-return the loan stays open
+		assertTrue(readingActivityRepository.findById(loan.getId()).orElseThrow().getActive());
+
+		libraryService.returnBook(loan.getId());
+		assertTrue(overdueLoans.list().isEmpty());
+	}
+
+	private double gauge(String name) {
+		return meterRegistry.get(name).gauge().value();
+	}
+
+	private long timed(String operation) {
+		return meterRegistry.get("library.operation").tag("operation", operation).timer().count();
+	}
+
+	@Test
+	void hotPathsAreMetered() {
+		Book book = book(1);
+		Member reader = member("reader"), m1 = member("m1"), m2 = member("m2");
+		long requests = timed("requestBook"), returns = timed("returnBook"), leaves = timed("userLeavesLibrary");
+		double refills = meterRegistry.get("library.notifications.refills").counter().count();
+
+		libraryService.requestBook(reader.getId(), book.getId(), 2);
+		libraryService.requestBook(m1.getId(), book.getId(), 2);
+		libraryService.requestBook(m2.getId(), book.getId(), 2);
+		assertEquals(requests + 3, timed("requestBook"));
+		assertEquals(3, gauge("library.members.active"));
+		assertEquals(2, gauge("library.waitlist.requests"));
+		assertEquals(2, gauge("library.waitlist.depth.max"));
+		assertEquals(2, gauge("library.durations"));
+		assertTrue(meterRegistry.get("library.book.lock.hold").timer().count() > 0);
+
+		libraryService.userLeavesLibrary(m2.getId());
+		assertEquals(leaves + 1, timed("userLeavesLibrary"));
+		assertEquals(1, gauge("library.waitlist.requests"));
+
+		returnLoanOf(reader);
+		assertEquals(returns + 1, timed("returnBook"));
+		assertEquals(1, gauge("library.notifications.books"));
+		assertTrue(meterRegistry.get("library.notifications.refills").counter().count() > refills);
+		assertEquals(0, meterRegistry.get("library.waitlist.evictions").counter().count());
+	}
+
+	@Test
+	void rolledBackBatchPutsCopiesAndQueuesBack() {
+		Book dune = book(1);
+		Member reader = member("reader"), late = member("late");
+		long batches = timed("requestBooks");
+
+		// Reader takes Dune, late queues behind reader for it; then the transaction fails
+		transactionTemplate.executeWithoutResult(status -> {
+			List<BookBorrowResponse> responses = libraryService.requestBooks(List.of(
+					new BorrowRequest(reader.getId(), dune.getId(), 2),
+					new BorrowRequest(late.getId(), dune.getId(), 2)));
+			assertTrue(responses.get(0).isSuccess());
+			assertEquals(1L, responses.get(1).getRank());
+			status.setRollbackOnly();
+		});
+		assertEquals(batches + 1, timed("requestBooks"));
+
+		assertEquals(1, bookRepository.findById(dune.getId()).orElseThrow().getAvailableCopies());
+		assertEquals(0L, libraryService.getQueueRank(late.getId(), dune.getId()));
+		assertTrue(libraryService.requestBook(late.getId(), dune.getId(), 2).isSuccess());
+	}
+
+	@Test
+	void startupLoadsMembersInsideTheLibraryFromTheDatabase() {
+		Book book = book(2);
+		Member inside = new Member(), outside = new Member();
+		inside.setName("inside");
+		inside.setActive(true);
+		outside.setName("outside");
+		outside.setActive(false);
+		memberRepository.saveAll(List.of(inside, outside));
+
+		// As after a restart: memory is empty, the database knows who is inside
+		libraryService.initializeActiveMembers();
+
+		assertTrue(libraryService.requestBook(inside.getId(), book.getId(), 2).isSuccess());
+		assertEquals("User not in library", libraryService.requestBook(outside.getId(), book.getId(), 2).getMessage());
+	}
+
+	@Test
+	void flightRecorderEventsFollowTheBorrowFlow() throws Exception {
+		Book book = book(1);
+		Member reader = member("reader"), m1 = member("m1");
+		Path file = Files.createTempFile("library", ".jfr");
+
+		try (Recording recording = new Recording(Configuration.create(Path.of("jfr/library.jfc")))) {
+			recording.start();
+			libraryService.requestBook(reader.getId(), book.getId(), 2);
+			libraryService.requestBook(m1.getId(), book.getId(), 3);
+			libraryService.requestBook(reader.getId(), book.getId(), 2);
+			returnLoanOf(reader);
+			libraryService.resetLibraryMemory();
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+		List<RecordedEvent> borrows = events.stream()
+				.filter(e -> e.getEventType().getName().equals("library.BorrowRequest")).toList();
+		assertEquals(List.of("assigned", "queued", "refused"), borrows.stream().map(e -> e.getString("outcome")).toList());
+		assertEquals(1, borrows.get(1).getLong("rank"));
+		assertEquals(3, borrows.get(1).getInt("hours"));
+		assertEquals(m1.getId(), borrows.get(1).getLong("memberId"));
+
+		// The returned copy made m1 a candidate
+		assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("library.NotificationRefill")
+				&& e.getLong("bookId") == book.getId() && e.getInt("scanned") == 1));
+		RecordedEvent reset = events.stream()
+				.filter(e -> e.getEventType().getName().equals("library.NightlyReset")).findFirst().orElseThrow();
+		assertEquals(2, reset.getInt("membersDeactivated"));
+		assertEquals(1, reset.getInt("queuedRequests"));
+	}
+
+	// Own application context: the service reads auto-return once, at construction
+	@Nested
+	@TestPropertySource(properties = "library.loans.auto-return=true")
+	class AutoReturn {
+
+		@Autowired
+		private LibraryService autoReturning;
+		@Autowired
+		private OverdueLoans wheel;
+
+		@Test
+		void overdueLoansAreReturnedOnTheNextTick() throws InterruptedException {
+			Book book = book(1);
+			Member late = memberRepository.save(new Member()), next = memberRepository.save(new Member());
+			autoReturning.userEntersLibrary(late.getId());
+			autoReturning.userEntersLibrary(next.getId());
+			assertTrue(autoReturning.requestBook(late.getId(), book.getId(), 2).isSuccess());
+			assertFalse(autoReturning.requestBook(next.getId(), book.getId(), 2).isSuccess());
+
+			ReadingActivity loan = readingActivityRepository.findByMemberIdAndIsActiveTrue(late.getId()).get(0);
+			wheel.loanStarted(loan.getId(), LocalDateTime.now().minusMinutes(1));
+
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (readingActivityRepository.findById(loan.getId()).orElseThrow().getActive()
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+			assertFalse(readingActivityRepository.findById(loan.getId()).orElseThrow().getActive());
+			assertEquals(1, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+			assertTrue(wheel.list().isEmpty());
+			// The copy went back in memory too: the waiting member is offered it
+			assertEquals(List.of(next.getId()), autoReturning.getAdminNotifications().stream()
+					.map(n -> n.getMember().getId()).toList());
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.library.managment.Sevices;
+
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "library.loans.auto-return=true")
+class OverdueLoansTest {
+
+	@Autowired
+	private LibraryService libraryService;
+	@Autowired
+	private OverdueLoans overdueLoans;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private ReadingActivityRepository readingActivityRepository;
+
+	@BeforeEach
+	void cleanUp() {
+		libraryService.resetLibraryMemory();
+		readingActivityRepository.deleteAll();
+		bookRepository.deleteAll();
+		memberRepository.deleteAll();
+	}
+
+	private Member member(String name) {
+		Member member = new Member();
+		member.setName(name);
+		member = memberRepository.save(member);
+		libraryService.userEntersLibrary(member.getId());
+		return member;
+	}
+
+	@Test
+	void overdueLoansAreReturnedAndTheNextReaderIsNotified() throws InterruptedException {
+		Book book = new Book();
+		book.setTitle("Dune");
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		book = bookRepository.save(book);
+		Member reader = member("reader"), next = member("next");
+
+		assertTrue(libraryService.requestBook(reader.getId(), book.getId(), 2).isSuccess());
+		libraryService.requestBook(next.getId(), book.getId(), 2);
+		ReadingActivity loan = readingActivityRepository.findByMemberIdAndIsActiveTrue(reader.getId()).get(0);
+		overdueLoans.loanStarted(loan.getId(), LocalDateTime.now().minusMinutes(1));
+
+		// The wheel ticks in the background; the notification shows up before the return commits
+		long deadline = System.currentTimeMillis() + 5_000;
+		while ((libraryService.getAdminNotifications().isEmpty()
+				|| readingActivityRepository.findById(loan.getId()).orElseThrow().getActive())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+
+		assertFalse(readingActivityRepository.findById(loan.getId()).orElseThrow().getActive());
+		assertEquals(1, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+		assertEquals(List.of(next.getId()),
+				libraryService.getAdminNotifications().stream().map(n -> n.getMember().getId()).toList());
+		assertTrue(overdueLoans.list().isEmpty());
+		assertEquals(0, overdueLoans.scheduledLoans());
+	}
+}
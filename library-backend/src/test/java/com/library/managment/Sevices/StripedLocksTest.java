@@ -0,0 +1,53 @@
+package com.library.managment.Sevices;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLocksTest {
+
+	@Test
+	void sizeIsRoundedUpToPowerOfTwo() {
+		assertEquals(1, new StripedLocks(1).size());
+		assertEquals(4, new StripedLocks(3).size());
+		assertEquals(1024, new StripedLocks(1024).size());
+		assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0));
+	}
+
+	@Test
+	void sameBookAlwaysGetsSameLock() {
+		StripedLocks locks = new StripedLocks(64);
+		for (long bookId = 1; bookId < 10_000; bookId++) {
+			assertSame(locks.lockFor(bookId), locks.lockFor(bookId));
+		}
+	}
+
+	@Test
+	void sequentialIdsSpreadOverAllStripes() {
+		StripedLocks locks = new StripedLocks(64);
+		Set<Integer> used = new HashSet<>();
+		for (long bookId = 1; bookId <= 1_000; bookId++) {
+			used.add(locks.stripeOf(bookId));
+		}
+		assertEquals(64, used.size());
+	}
+
+	@Test
+	void severalBooksLockEachStripeOnceInStripeOrder() {
+		StripedLocks locks = new StripedLocks(4);
+		long[] bookIds = new long[100];
+		for (int i = 0; i < bookIds.length; i++) bookIds[i] = 100 - i;
+
+		long[] order = locks.lockOrder(bookIds);
+		assertEquals(4, order.length);
+		for (int i = 1; i < order.length; i++) {
+			assertTrue(locks.stripeOf(order[i - 1]) < locks.stripeOf(order[i]));
+		}
+		assertArrayEquals(new long[]{7}, locks.lockOrder(new long[]{7, 7}));
+		assertEquals(0, locks.lockOrder(new long[0]).length);
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.library.managment.Sevices;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitListJournalTest {
+
+	@TempDir
+	Path dir;
+
+	// Replayed records as readable strings
+	static class Recorder implements WaitListJournal.Visitor {
+		final List<String> records = new ArrayList<>();
+
+		public void enqueue(long bookId, long memberId, int duration) {
+			records.add("enqueue " + bookId + " " + memberId + " " + duration);
+		}
+
+		public void dequeue(long bookId, long memberId) {
+			records.add("dequeue " + bookId + " " + memberId);
+		}
+
+		public void evict(long bookId, long memberId) {
+			records.add("evict " + bookId + " " + memberId);
+		}
+
+		public void leave(long memberId) {
+			records.add("leave " + memberId);
+		}
+
+		public void dropBook(long bookId) {
+			records.add("drop " + bookId);
+		}
+	}
+
+	private WaitListJournal open() {
+		return new WaitListJournal(true, dir.toString(), 1, 1);
+	}
+
+	private List<String> replay() {
+		WaitListJournal journal = open();
+		Recorder recorder = new Recorder();
+		journal.replay(recorder);
+		journal.close();
+		return recorder.records;
+	}
+
+	@Test
+	void mutationsAreReplayedInOrderAfterRestart() {
+		WaitListJournal journal = open();
+		journal.replay(new Recorder());
+		journal.enqueue(1, 10, 3);
+		journal.enqueue(1, 11, 2);
+		journal.dequeue(1, 10);
+		journal.evict(2, 12);
+		journal.leave(11);
+		journal.dropBook(3);
+		journal.close();
+
+		assertEquals(List.of("enqueue 1 10 3", "enqueue 1 11 2", "dequeue 1 10", "evict 2 12", "leave 11", "drop 3"),
+				replay());
+	}
+
+	@Test
+	void fullLogRollsOverToTheNextGeneration() {
+		WaitListJournal journal = open();
+		journal.replay(new Recorder());
+		// A 1 MB log holds 32768 records
+		for (int i = 0; i < 40_000; i++) journal.enqueue(1, i, 1);
+		journal.close();
+
+		List<String> records = replay();
+		assertEquals(40_000, records.size());
+		assertEquals("enqueue 1 39999 1", records.get(39_999));
+	}
+
+	@Test
+	void compactionKeepsTheSnapshotAndLaterMutationsOnly() throws IOException {
+		WaitListJournal journal = open();
+		journal.replay(new Recorder());
+		for (int i = 0; i < 1000; i++) journal.enqueue(1, i, 1);
+		assertFalse(journal.needsCompaction());
+		for (int i = 0; i < 40_000; i++) journal.dequeue(2, i);
+		assertTrue(journal.needsCompaction());
+
+		journal.compact(writer -> {
+			writer.enqueue(1, 5, 4);
+			writer.enqueue(1, 6, 1);
+		});
+		journal.dequeue(1, 5);
+		journal.close();
+
+		assertEquals(List.of("enqueue 1 5 4", "enqueue 1 6 1", "dequeue 1 5"), replay());
+		try (Stream<Path> files = Files.list(dir)) {
+			// One snapshot, its log and the log started by the replay above
+			assertEquals(3, files.count());
+		}
+	}
+
+	@Test
+	void tornRecordEndsTheReplayOfItsLog() throws IOException {
+		WaitListJournal journal = open();
+		journal.replay(new Recorder());
+		journal.enqueue(1, 10, 1);
+		journal.enqueue(1, 11, 1);
+		journal.enqueue(1, 12, 1);
+		journal.close();
+
+		// Crash in the middle of the third record
+		try (RandomAccessFile log = new RandomAccessFile(dir.resolve("journal-1.log").toFile(), "rw")) {
+			log.seek(2 * 32 + 20);
+			log.write(0x7f);
+		}
+
+		journal = open();
+		Recorder recorder = new Recorder();
+		journal.replay(recorder);
+		assertEquals(List.of("enqueue 1 10 1", "enqueue 1 11 1"), recorder.records);
+
+		// Appends go on in a new log
+		journal.enqueue(1, 13, 1);
+		journal.close();
+		assertEquals(List.of("enqueue 1 10 1", "enqueue 1 11 1", "enqueue 1 13 1"), replay());
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.library.managment.Sevices;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitListTest {
+
+	@Test
+	void keepsArrivalOrderAndRank() {
+		WaitList queue = new WaitList();
+		assertTrue(queue.add(10));
+		assertTrue(queue.add(20));
+		assertTrue(queue.add(30));
+		assertFalse(queue.add(20));
+
+		assertEquals(10L, queue.first());
+		assertEquals(3, queue.rank(30));
+		assertTrue(queue.remove(20));
+		assertEquals(2, queue.rank(30));
+		assertEquals(0, queue.rank(20));
+		assertTrue(queue.remove(10));
+		assertEquals(30L, queue.first());
+		assertTrue(queue.remove(30));
+		assertTrue(queue.isEmpty());
+		assertEquals(WaitList.NONE, queue.first());
+	}
+
+	@Test
+	void iteratorRemovesWhileIterating() {
+		WaitList queue = new WaitList();
+		for (long m = 1; m <= 10; m++) queue.add(m);
+
+		Iterator<Long> iterator = queue.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next() % 2 == 0) iterator.remove();
+		}
+		List<Long> left = new ArrayList<>();
+		queue.forEach(left::add);
+		assertEquals(List.of(1L, 3L, 5L, 7L, 9L), left);
+		assertEquals(5, queue.rank(9));
+	}
+
+	@Test
+	void matchesLinkedHashSetUnderRandomOperations() {
+		Random random = new Random(42);
+		WaitList queue = new WaitList();
+		LinkedHashSet<Long> reference = new LinkedHashSet<>();
+
+		for (int step = 0; step < 20_000; step++) {
+			long member = random.nextInt(500);
+			if (random.nextInt(3) == 0) {
+				assertEquals(reference.remove(member), queue.remove(member));
+			} else {
+				assertEquals(reference.add(member), queue.add(member));
+			}
+
+			if (step % 97 == 0) {
+				long rank = 1;
+				for (Long id : reference) {
+					assertEquals(rank++, queue.rank(id));
+				}
+				assertEquals(new ArrayList<>(reference), toList(queue));
+				assertEquals(reference.isEmpty() ? WaitList.NONE : reference.iterator().next(), queue.first());
+			}
+			assertEquals(reference.size(), queue.size());
+		}
+	}
+
+	private static List<Long> toList(WaitList queue) {
+		List<Long> members = new ArrayList<>();
+		queue.forEach(members::add);
+		return members;
+	}
+
+}
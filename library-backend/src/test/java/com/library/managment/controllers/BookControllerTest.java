@@ -0,0 +1,261 @@
+package com.library.managment.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.library.managment.Sevices.EntityCache;
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.SearchIndex;
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private LibraryService libraryService;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private ReadingActivityRepository readingActivityRepository;
+	@Autowired
+	private SearchIndex searchIndex;
+	@Autowired
+	private EntityCache entityCache;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void cleanUp() {
+		libraryService.resetLibraryMemory();
+		readingActivityRepository.deleteAll();
+		bookRepository.deleteAll();
+		memberRepository.deleteAll();
+		// Rows were deleted behind the controllers' back
+		searchIndex.rebuild();
+	}
+
+	private Book book(String title) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		return bookRepository.save(book);
+	}
+
+	// Follow nextCursor until the last slice, collecting titles
+	private List<String> walk(String query) throws Exception {
+		List<String> titles = new ArrayList<>();
+		String cursor = null;
+		do {
+			String url = "/book/slice?size=2&" + query + (cursor == null ? "" : "&cursor=" + cursor);
+			String json = mockMvc.perform(get(url)).andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			List<String> page = JsonPath.read(json, "$.content[*].title");
+			assertTrue(page.size() <= 2);
+			titles.addAll(page);
+			cursor = JsonPath.read(json, "$.nextCursor");
+			assertEquals(cursor != null, (boolean) JsonPath.read(json, "$.hasNext"));
+		} while (cursor != null);
+		return titles;
+	}
+
+	@Test
+	void slicesFollowTheCursorInSortOrder() throws Exception {
+		for (String title : List.of("Dune", "Emma", "Dune", "Beloved", "100% Dune", "Ulysses")) {
+			book(title);
+		}
+
+		assertEquals(List.of("Dune", "Emma", "Dune", "Beloved", "100% Dune", "Ulysses"), walk("sort=id"));
+		// Equal titles are told apart by id
+		assertEquals(List.of("100% Dune", "Beloved", "Dune", "Dune", "Emma", "Ulysses"), walk("sort=title"));
+		assertEquals(List.of("100% Dune", "Dune", "Dune"), walk("sort=title&title=DUNE"));
+		assertEquals(List.of("100% Dune"), walk("sort=title&title=%"));
+	}
+
+	@Test
+	void booksWithoutTitleComeFirst() throws Exception {
+		book("Dune");
+		book(null);
+		book("Emma");
+		book(null);
+		assertEquals(Arrays.asList(null, null, "Dune", "Emma"), walk("sort=title"));
+	}
+
+	@Test
+	void malformedCursorsOrCursorsOfAnotherSortAreRejected() throws Exception {
+		book("Dune");
+		book("Emma");
+		String json = mockMvc.perform(get("/book/slice?size=1&sort=id")).andReturn().getResponse().getContentAsString();
+		String cursor = JsonPath.read(json, "$.nextCursor");
+
+		mockMvc.perform(get("/book/slice?sort=title&cursor=" + cursor)).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/book/slice?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+
+		// Right keys, but the id is null
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(2);
+			out.writeUTF("title");
+			out.writeByte(2);
+			out.writeUTF("Dune");
+			out.writeUTF("id");
+			out.writeByte(0);
+		}
+		String crafted = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+		mockMvc.perform(get("/book/slice?sort=title&cursor=" + crafted)).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/book/slice?sort=author")).andExpect(status().isBadRequest());
+	}
+
+	private Number create(String title, String author) throws Exception {
+		String json = mockMvc.perform(post("/book").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"" + title + "\",\"author\":\"" + author + "\",\"imageUrl\":\"x.jpg\"}"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		return JsonPath.read(json, "$.id");
+	}
+
+	private List<String> search(String query) throws Exception {
+		String json = mockMvc.perform(get("/book/pageable?size=2&" + query)).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		List<String> titles = new ArrayList<>(JsonPath.read(json, "$.content[*].title"));
+		titles.add("total " + JsonPath.read(json, "$.totalElements"));
+		return titles;
+	}
+
+	@Test
+	void searchFollowsCreatesUpdatesAndDeletes() throws Exception {
+		Number dune = create("Dune", "Frank Herbert");
+		create("Dune Messiah", "Frank Herbert");
+		create("Emma", "Jane Austen");
+		create("Children of Dune", "Frank Herbert");
+
+		assertEquals(List.of("Dune", "Dune Messiah", "total 3"), search("title=dUNe"));
+		assertEquals(List.of("Children of Dune", "total 3"), search("title=dune&page=1"));
+		assertEquals(List.of("Emma", "total 1"), search("author=aust"));
+		assertEquals(List.of("Dune Messiah", "total 1"), search("title=messiah&author=herb"));
+
+		mockMvc.perform(put("/book/" + dune).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Arrakis\",\"author\":\"Frank Herbert\",\"totalCopies\":1,\"availableCopies\":1}"))
+				.andExpect(status().isOk());
+		assertEquals(List.of("Dune Messiah", "Children of Dune", "total 2"), search("title=dune"));
+		assertEquals(List.of("Arrakis", "total 1"), search("title=rak"));
+
+		mockMvc.perform(delete("/book/" + dune)).andExpect(status().isNoContent());
+		assertEquals(List.of("total 0"), search("title=rak"));
+		// Without a search the page still comes from the database
+		assertEquals(List.of("Dune Messiah", "Emma", "total 3"), search("page=0"));
+	}
+
+	private int availableCopies(Long bookId) throws Exception {
+		String json = mockMvc.perform(get("/book/" + bookId)).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return JsonPath.read(json, "$.availableCopies");
+	}
+
+	@Test
+	void cachedBookFollowsLoansEditsAndDeletes() throws Exception {
+		Book book = book("Dune");
+		Member member = new Member();
+		member.setName("Alice");
+		member = memberRepository.save(member);
+		libraryService.userEntersLibrary(member.getId());
+
+		long misses = entityCache.books().misses();
+		assertEquals(1, availableCopies(book.getId()));
+		assertEquals(1, availableCopies(book.getId()));
+		assertEquals(misses + 1, entityCache.books().misses());
+		assertEquals(entityCache.books().misses(), meterRegistry.get("library.cache.gets")
+				.tags("cache", "books", "result", "miss").functionCounter().count());
+
+		libraryService.requestBook(member.getId(), book.getId(), 2);
+		assertEquals(0, availableCopies(book.getId()));
+
+		libraryService.returnBook(readingActivityRepository.findByMemberIdAndIsActiveTrue(member.getId()).get(0).getId());
+		assertEquals(1, availableCopies(book.getId()));
+
+		mockMvc.perform(put("/book/" + book.getId()).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Dune\",\"totalCopies\":5,\"availableCopies\":4}"))
+				.andExpect(status().isOk());
+		assertEquals(4, availableCopies(book.getId()));
+
+		readingActivityRepository.deleteAll();
+		mockMvc.perform(delete("/book/" + book.getId())).andExpect(status().isNoContent());
+		assertTrue(entityCache.book(book.getId()).isEmpty());
+	}
+
+	@Test
+	void bookReadBeforeTheCommitIsNotKeptInTheCache() {
+		Book book = book("Dune");
+
+		transactionTemplate.executeWithoutResult(status -> {
+			bookRepository.decrementAvailableCopies(book.getId());
+			entityCache.bookChanged(book.getId());
+			// Another request reads the row before the copy taken here is committed
+			int before = CompletableFuture.supplyAsync(() -> entityCache.book(book.getId()).orElseThrow()).join()
+					.getAvailableCopies();
+			assertEquals(1, before);
+		});
+
+		assertEquals(0, entityCache.book(book.getId()).orElseThrow().getAvailableCopies());
+	}
+
+	@Test
+	void importsNdjsonAndCsvInChunks() throws Exception {
+		String ndjson = "{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"imageUrl\":\"dune.jpg\",\"totalCopies\":3}\n"
+				+ "{\"title\":\"Emma\",\"author\":\"Jane Austen\"}\n"
+				+ "{\"title\":\"Ulysses\",\"author\":\"James Joyce\"}\n";
+		String json = mockMvc.perform(post("/book/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		assertEquals(3, (int) JsonPath.read(json, "$.rows"));
+		// Chunks of 2 in the test profile
+		assertEquals(2, (int) JsonPath.read(json, "$.chunks"));
+
+		String csv = "title,author,totalCopies\n\"Children of Dune\",\"Herbert, Frank\",2\n";
+		mockMvc.perform(post("/book/import").contentType("text/csv").content(csv)).andExpect(status().isOk());
+
+		// Initialized like createBooks, and searchable right away
+		Book dune = bookRepository.findAll().stream().filter(b -> b.getTitle().equals("Dune")).findFirst().orElseThrow();
+		assertEquals(3, dune.getAvailableCopies());
+		assertEquals(BookController.BASE_URL + "dune.jpg", dune.getImageUrl());
+		assertEquals(List.of("Dune", "Children of Dune", "total 2"), search("title=dune"));
+		assertEquals(List.of("Children of Dune", "total 1"), search("author=herbert,"));
+
+		// A malformed row stops the import, the chunks before it stay
+		String broken = "{\"title\":\"A\"}\n{\"title\":\"B\"}\n{\"title\":\"C\"}\n{\"title\":\n";
+		mockMvc.perform(post("/book/import").contentType(MediaType.APPLICATION_NDJSON).content(broken))
+				.andExpect(status().isBadRequest());
+		assertEquals(6, bookRepository.count());
+	}
+}
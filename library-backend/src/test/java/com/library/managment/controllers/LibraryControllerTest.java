@@ -0,0 +1,213 @@
+package com.library.managment.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.OverdueLoans;
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LibraryControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private LibraryService libraryService;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private ReadingActivityRepository readingActivityRepository;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private OverdueLoans overdueLoans;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void cleanUp() {
+		libraryService.resetLibraryMemory();
+		readingActivityRepository.deleteAll();
+		bookRepository.deleteAll();
+		memberRepository.deleteAll();
+	}
+
+	private Member member(String name) {
+		Member member = new Member();
+		member.setName(name);
+		member = memberRepository.save(member);
+		libraryService.userEntersLibrary(member.getId());
+		return member;
+	}
+
+	// Events are sent by a background thread: wait until the expected text shows up
+	private String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5_000;
+		String content = response.getContentAsString();
+		while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			content = response.getContentAsString();
+		}
+		return content;
+	}
+
+	@Test
+	void notificationStreamSendsSnapshotThenChanges() throws Exception {
+		Book book = new Book();
+		book.setTitle("Dune");
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		book = bookRepository.save(book);
+		Member reader = member("reader");
+		Member waiting = member("waiting");
+
+		libraryService.requestBook(reader.getId(), book.getId(), 2);
+		libraryService.requestBook(waiting.getId(), book.getId(), 2);
+
+		MvcResult result = mockMvc.perform(get("/library/notifications/stream"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MockHttpServletResponse response = result.getResponse();
+		assertTrue(awaitContent(response, "\"type\":\"snapshot\"").contains("event:snapshot"));
+
+		// A copy comes back: the waiting member is announced
+		Long activityId = readingActivityRepository.findByMemberIdAndIsActiveTrue(reader.getId()).get(0).getId();
+		libraryService.returnBook(activityId);
+		String added = "\"type\":\"add\",\"bookId\":" + book.getId() + ",\"memberId\":" + waiting.getId();
+		assertTrue(awaitContent(response, added).contains(added));
+
+		// ...and withdrawn when they leave
+		libraryService.userLeavesLibrary(waiting.getId());
+		String removed = "\"type\":\"remove\"";
+		assertTrue(awaitContent(response, removed).contains(removed));
+	}
+
+	@Test
+	void activityHistoryIsExportedAsOneJsonObjectPerLine() throws Exception {
+		Book book = new Book();
+		book.setTitle("Dune");
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		book = bookRepository.save(book);
+		Member reader = member("reader");
+
+		// More rows than are kept between two clears of the persistence context
+		List<ReadingActivity> history = new ArrayList<>();
+		for (int i = 0; i < 2_500; i++) {
+			ReadingActivity activity = new ReadingActivity(book, reader, LocalDateTime.now(), LocalDateTime.now());
+			activity.setActive(false);
+			history.add(activity);
+		}
+		readingActivityRepository.saveAll(history);
+
+		String body = mockMvc.perform(get("/library/export"))
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertEquals(2_500, lines.length);
+		assertTrue(body.endsWith("\n"));
+		long previousId = 0;
+		for (String line : lines) {
+			JsonNode activity = objectMapper.readTree(line);
+			assertTrue(activity.get("id").asLong() > previousId);
+			previousId = activity.get("id").asLong();
+			assertEquals("Dune", activity.get("book").get("title").asText());
+			assertEquals("reader", activity.get("member").get("name").asText());
+		}
+
+		String members = mockMvc.perform(get("/member/export")).andReturn().getResponse().getContentAsString();
+		assertEquals("reader", objectMapper.readTree(members.trim()).get("name").asText());
+	}
+
+
+	// GET the url and return its JSON, counting the SQL statements it ran
+	private JsonNode getCounting(String url, long[] statements) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		String body = mockMvc.perform(get(url)).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		statements[0] = statistics.getPrepareStatementCount();
+		return objectMapper.readTree(body);
+	}
+
+	@Test
+	void activityListsRunOneQueryAndSendOnlyListedFields() throws Exception {
+		List<Member> readers = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Book book = new Book();
+			book.setTitle("Book " + i);
+			book.setImageUrl("book" + i + ".jpg");
+			book.setTotalCopies(1);
+			book.setAvailableCopies(1);
+			book = bookRepository.save(book);
+			Member reader = member("reader " + i);
+			libraryService.requestBook(reader.getId(), book.getId(), 2);
+			readers.add(reader);
+		}
+		Long lateLoan = readingActivityRepository.findByMemberIdAndIsActiveTrue(readers.get(0).getId()).get(0).getId();
+		overdueLoans.loanStarted(lateLoan, LocalDateTime.now().minusMinutes(1));
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (overdueLoans.list().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+
+		// A returned loan is not listed, whether it was archived yet or not
+		libraryService.returnBook(readingActivityRepository.findByMemberIdAndIsActiveTrue(readers.get(4).getId()).get(0).getId());
+
+		long[] statements = new long[1];
+		JsonNode all = getCounting("/library", statements);
+		assertEquals(4, all.size());
+		assertEquals(1, statements[0]);
+		JsonNode first = all.get(0);
+		assertEquals("Book 0", first.get("book").get("title").asText());
+		assertEquals("book0.jpg", first.get("book").get("imageUrl").asText());
+		assertEquals("reader 0", first.get("member").get("name").asText());
+		assertTrue(first.get("active").asBoolean());
+		assertNotNull(first.get("expectedEndTime"));
+		// Copies and activity flags of the book and member are not sent
+		assertNull(first.get("book").get("availableCopies"));
+		assertNull(first.get("member").get("active"));
+
+		JsonNode borrowed = getCounting("/member/borrowed/" + readers.get(3).getId(), statements);
+		assertEquals(1, borrowed.size());
+		assertEquals("Book 3", borrowed.get(0).get("book").get("title").asText());
+		assertEquals(1, statements[0]);
+
+		// Kept in memory once the loan fell due
+		JsonNode expired = getCounting("/library/expired", statements);
+		assertEquals(1, expired.size());
+		assertEquals(lateLoan, expired.get(0).get("id").asLong());
+		assertEquals("reader 0", expired.get(0).get("member").get("name").asText());
+		assertEquals(0, statements[0]);
+	}
+}
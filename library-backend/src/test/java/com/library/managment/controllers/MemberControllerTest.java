@@ -0,0 +1,226 @@
+package com.library.managment.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.SearchIndex;
+import com.library.managment.model.Book;
+import com.library.managment.model.Member;
+import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.BookRepository;
+import com.library.managment.repository.MemberRepository;
+import com.library.managment.repository.ReadingActivityRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private LibraryService libraryService;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private ReadingActivityRepository readingActivityRepository;
+	@Autowired
+	private SearchIndex searchIndex;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void cleanUp() {
+		libraryService.resetLibraryMemory();
+		readingActivityRepository.deleteAll();
+		bookRepository.deleteAll();
+		memberRepository.deleteAll();
+		// Rows were deleted behind the controllers' back
+		searchIndex.rebuild();
+	}
+
+	private Book book(String title) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		return bookRepository.save(book);
+	}
+
+	private Member member(String name) {
+		Member member = new Member();
+		member.setName(name);
+		return memberRepository.save(member);
+	}
+
+	private void loan(Member member, Book book, boolean active) {
+		ReadingActivity activity = new ReadingActivity(book, member, LocalDateTime.now(), LocalDateTime.now().plusHours(2));
+		activity.setActive(active);
+		readingActivityRepository.save(activity);
+	}
+
+	private List<Long> ids(String url) throws Exception {
+		String json = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		List<Number> ids = JsonPath.read(json, "$[*].id");
+		return ids.stream().map(Number::longValue).toList();
+	}
+
+	@Test
+	void availableBooksExcludeActiveLoansPageByPage() throws Exception {
+		Member reader = member("reader"), other = member("other");
+		List<Book> books = new ArrayList<>();
+		for (String title : List.of("Dune", "Emma", "Dune Messiah", "Ulysses", "Children of Dune")) {
+			books.add(book(title));
+		}
+		loan(reader, books.get(0), true);
+		loan(reader, books.get(1), false);  // returned: available again
+		loan(other, books.get(3), true);    // someone else's loan does not count
+
+		// Walk the pages of two books with the last id as cursor
+		List<Long> seen = new ArrayList<>();
+		long afterId = 0;
+		while (true) {
+			List<Long> page = ids("/member/available/" + reader.getId() + "?size=2&afterId=" + afterId);
+			assertTrue(page.size() <= 2);
+			if (page.isEmpty()) break;
+			seen.addAll(page);
+			afterId = page.get(page.size() - 1);
+		}
+		assertEquals(List.of(books.get(1).getId(), books.get(2).getId(), books.get(3).getId(), books.get(4).getId()), seen);
+
+		assertEquals(List.of(books.get(2).getId(), books.get(4).getId()),
+				ids("/member/available/" + reader.getId() + "?title=dune"));
+
+		// Wildcards in the title are matched literally
+		Book percent = book("100% Dune");
+		assertEquals(List.of(percent.getId()), ids("/member/available/" + reader.getId() + "?title=%"));
+		assertTrue(ids("/member/available/" + reader.getId() + "?title=_").isEmpty());
+	}
+
+	@Test
+	void activeMembersAreSlicedByName() throws Exception {
+		for (String name : List.of("zoe", "adam", "mia", "adam", "lea")) {
+			Member member = member(name);
+			libraryService.setMemberActive(member, !name.equals("mia"));
+		}
+
+		List<String> names = new ArrayList<>();
+		String cursor = null;
+		do {
+			String json = mockMvc.perform(get("/member/slice?size=3&sort=name&active=true"
+							+ (cursor == null ? "" : "&cursor=" + cursor)))
+					.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+			names.addAll(JsonPath.read(json, "$.content[*].name"));
+			cursor = JsonPath.read(json, "$.nextCursor");
+		} while (cursor != null);
+
+		assertEquals(List.of("adam", "adam", "lea", "zoe"), names);
+	}
+
+	private List<String> searchNames(String name) throws Exception {
+		String json = mockMvc.perform(get("/member/pageable?size=10&name=" + name)).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertEquals((int) JsonPath.read(json, "$.totalElements"), (int) JsonPath.read(json, "$.numberOfElements"));
+		return JsonPath.read(json, "$.content[*].name");
+	}
+
+	@Test
+	void nameSearchFollowsTheControllers() throws Exception {
+		String json = mockMvc.perform(post("/member/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"name\":\"Adam Smith\"},{\"name\":\"Eve Adams\"},{\"name\":\"Mia\"}]"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		List<Number> ids = JsonPath.read(json, "$[*].id");
+
+		assertEquals(List.of("Adam Smith", "Eve Adams"), searchNames("ADAM"));
+		assertEquals(List.of("Mia"), searchNames("mIa"));
+
+		mockMvc.perform(put("/member/" + ids.get(2)).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Mia Adamson\"}")).andExpect(status().isOk());
+		mockMvc.perform(delete("/member/" + ids.get(0))).andExpect(status().isNoContent());
+		assertEquals(List.of("Eve Adams", "Mia Adamson"), searchNames("adam"));
+	}
+
+	@Test
+	void importedMembersAreSearchableAndInsideTheLibrary() throws Exception {
+		String csv = "name,imageUrl\nAlice,alice.jpg\nBob,bob.jpg\n\"Alicia Keys\",\n";
+		String json = mockMvc.perform(post("/member/import").contentType("text/csv").content(csv))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		assertEquals(3, (int) JsonPath.read(json, "$.rows"));
+
+		json = mockMvc.perform(get("/member/pageable?name=ali")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertEquals(List.of("Alice", "Alicia Keys"), JsonPath.read(json, "$.content[*].name"));
+
+		Member alice = memberRepository.findAll().stream().filter(m -> m.getName().equals("Alice")).findFirst().orElseThrow();
+		assertTrue(alice.getActive());
+		assertEquals(MemberController.BASE_URL + "alice.jpg", alice.getImageUrl());
+		assertTrue(libraryService.requestBook(alice.getId(), book("Dune").getId(), 2).isSuccess());
+
+		// Rows must match the header
+		mockMvc.perform(post("/member/import").contentType("text/csv").content("name,imageUrl\nCarol\n"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void batchBorrowAndReturnRunInOneTransaction() throws Exception {
+		Member reader = member("reader"), other = member("other");
+		libraryService.userEntersLibrary(reader.getId());
+		libraryService.userEntersLibrary(other.getId());
+		Book dune = book("Dune"), emma = book("Emma");
+		long r = reader.getId(), o = other.getId();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		String borrowed = mockMvc.perform(post("/member/borrow/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"memberId\":" + r + ",\"bookId\":" + dune.getId() + ",\"duration\":2},"
+								+ "{\"memberId\":" + r + ",\"bookId\":" + emma.getId() + "},"
+								+ "{\"memberId\":" + o + ",\"bookId\":" + dune.getId() + "},"
+								+ "{\"memberId\":" + r + ",\"bookId\":" + dune.getId() + "}]"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		assertEquals(1, statistics.getTransactionCount());
+
+		// Answered in request order: two loans, the other member waits for Dune, the repeat is refused
+		assertEquals(List.of(true, true, false, false), JsonPath.read(borrowed, "$[*].success"));
+		assertEquals(1, (Integer) JsonPath.read(borrowed, "$[2].rank"));
+		assertEquals("Duplicate request in this batch", JsonPath.read(borrowed, "$[3].message"));
+		assertEquals(0, bookRepository.findById(dune.getId()).orElseThrow().getAvailableCopies());
+
+		List<Long> loans = readingActivityRepository.findActiveViewsByMember(r).stream().map(a -> a.id()).toList();
+		assertEquals(2, loans.size());
+		statistics.clear();
+		String returned = mockMvc.perform(post("/member/return/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + loans.get(0) + "," + loans.get(1) + "," + loans.get(0) + "]"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		assertEquals(1, statistics.getTransactionCount());
+
+		assertEquals(List.of(true, true, false), JsonPath.read(returned, "$[*].success"));
+		assertEquals(1, bookRepository.findById(dune.getId()).orElseThrow().getAvailableCopies());
+		assertEquals(1, bookRepository.findById(emma.getId()).orElseThrow().getAvailableCopies());
+		// Dune's copy came back: the waiting member is offered it
+		assertEquals(List.of(o), libraryService.getAdminNotifications().stream().map(n -> n.getMember().getId()).toList());
+
+		mockMvc.perform(post("/member/return/batch").contentType(MediaType.APPLICATION_JSON).content("[1,null]"))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,53 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIdSetTest {
+
+	@Test
+	void tracksIdsInsideAndOutsideTheBitset() {
+		ConcurrentIdSet ids = new ConcurrentIdSet();
+		assertTrue(ids.add(1L));
+		assertFalse(ids.add(1L));
+		assertTrue(ids.add(70_000L));
+		assertTrue(ids.add(-5L));
+		assertTrue(ids.add(Long.MAX_VALUE));
+
+		assertTrue(ids.contains(70_000L));
+		assertTrue(ids.contains(-5L));
+		assertFalse(ids.contains(2L));
+		assertEquals(4, ids.size());
+
+		assertTrue(ids.remove(1L));
+		assertFalse(ids.remove(1L));
+		assertTrue(ids.remove(Long.MAX_VALUE));
+		assertEquals(2, ids.size());
+
+		ids.clear();
+		assertEquals(0, ids.size());
+		assertFalse(ids.contains(70_000L));
+	}
+
+	@Test
+	void concurrentAddsSharingWordsAreNotLost() throws InterruptedException {
+		ConcurrentIdSet ids = new ConcurrentIdSet();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			int offset = t;
+			// Interleaved ids: every thread writes into every word
+			pool.execute(() -> {
+				for (long id = offset; id < 200_000; id += 8) ids.add(id);
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(200_000, ids.size());
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+	@Test
+	void readsQuotedFieldsAndBothLineEndings() throws IOException {
+		CsvReader csv = new CsvReader(new StringReader(
+				"title,author\r\n\"Dune, Part 1\",\"Frank \"\"F\"\" Herbert\"\n\nEmma,\n\"Two\nlines\",x"));
+
+		assertArrayEquals(new String[]{"title", "author"}, csv.next());
+		assertArrayEquals(new String[]{"Dune, Part 1", "Frank \"F\" Herbert"}, csv.next());
+		assertEquals(4, csv.line());
+		assertArrayEquals(new String[]{"Emma", ""}, csv.next());
+		assertArrayEquals(new String[]{"Two\nlines", "x"}, csv.next());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void rejectsUnterminatedQuotes() throws IOException {
+		CsvReader csv = new CsvReader(new StringReader("\"Dune,Herbert\n"));
+		assertThrows(IOException.class, csv::next);
+	}
+}
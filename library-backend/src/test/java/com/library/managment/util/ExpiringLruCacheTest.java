@@ -0,0 +1,83 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLruCacheTest {
+
+	private static final long HOUR = 3_600_000_000_000L;
+
+	@Test
+	void loadsOnceThenServesHits() {
+		ExpiringLruCache<String> cache = new ExpiringLruCache<>(100, HOUR);
+		AtomicInteger loads = new AtomicInteger();
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals("7", cache.get(7, id -> {
+				loads.incrementAndGet();
+				return Long.toString(id);
+			}));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.misses());
+		assertEquals(4, cache.hits());
+	}
+
+	@Test
+	void missingRowsAreNotCached() {
+		ExpiringLruCache<String> cache = new ExpiringLruCache<>(100, HOUR);
+		assertNull(cache.get(1, id -> null));
+		assertNull(cache.getIfPresent(1));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void entriesExpireAfterTheirTimeToLive() {
+		long[] clock = {0};
+		ExpiringLruCache<String> cache = new ExpiringLruCache<>(100, 10, () -> clock[0]);
+		cache.put(1, "a");
+		cache.put(2, "b");
+
+		clock[0] = 9;
+		assertEquals("a", cache.getIfPresent(1));
+		clock[0] = 10;
+		assertNull(cache.getIfPresent(1));
+		assertEquals(1, cache.size());
+
+		cache.cleanUp();
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.evictions());
+	}
+
+	@Test
+	void leastRecentlyUsedIsDroppedWhenFull() {
+		// Size 16 spreads as one entry per segment: ids landing in the same segment replace each other
+		ExpiringLruCache<Long> cache = new ExpiringLruCache<>(16, HOUR);
+		for (long id = 0; id < 1_000; id++) cache.put(id, id);
+
+		assertTrue(cache.size() <= 16);
+		assertEquals(1_000 - cache.size(), cache.evictions());
+		assertEquals(999L, cache.getIfPresent(999));
+	}
+
+	@Test
+	void invalidationDuringLoadIsNotUndone() {
+		ExpiringLruCache<String> cache = new ExpiringLruCache<>(100, HOUR);
+
+		// The row changes while the old version is being read
+		assertEquals("old", cache.get(1, id -> {
+			cache.invalidate(1);
+			return "old";
+		}));
+		assertNull(cache.getIfPresent(1));
+
+		assertEquals("new", cache.get(1, id -> "new"));
+		assertEquals("new", cache.getIfPresent(1));
+
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,49 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+	@Test
+	void behavesLikeHashMapUnderRandomOperations() {
+		LongIntHashMap map = new LongIntHashMap();
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for (int i = 0; i < 200_000; i++) {
+			// Small key range forces collisions, removals and backward shifts
+			long key = random.nextInt(5_000) - 10;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key) != null, map.remove(key));
+			} else {
+				int value = random.nextInt();
+				map.put(key, value);
+				expected.put(key, value);
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (long key = -10; key < 4_990; key++) {
+			assertEquals(expected.getOrDefault(key, -1), map.get(key, -1));
+		}
+		assertEquals(expected.size(), map.keys().length);
+	}
+
+	@Test
+	void zeroKeyIsAnOrdinaryKey() {
+		LongIntHashMap map = new LongIntHashMap();
+		assertFalse(map.containsKey(0L));
+		map.put(0L, 7);
+		assertEquals(7, map.get(0L, -1));
+		assertEquals(1, map.size());
+		assertTrue(map.remove(0L));
+		assertTrue(map.isEmpty());
+	}
+
+}
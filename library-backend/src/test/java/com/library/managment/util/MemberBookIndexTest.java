@@ -0,0 +1,76 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberBookIndexTest {
+
+	@Test
+	void indexesBooksPerMember() {
+		MemberBookIndex index = new MemberBookIndex();
+		index.put(10L, 1L, 1);
+		index.put(10L, 2L, 1);
+		index.put(20L, 1L, 3);
+
+		long[] books = index.books(10L);
+		Arrays.sort(books);
+		assertArrayEquals(new long[]{1L, 2L}, books);
+		assertEquals(3, index.getOrDefault(20L, 1L, 0));
+		assertEquals(3, index.size());
+
+		assertTrue(index.remove(10L, 1L));
+		assertFalse(index.remove(10L, 1L));
+		index.removeMember(10L);
+		assertEquals(0, index.books(10L).length);
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void matchesReferenceMapUnderRandomOperations() {
+		MemberBookIndex index = new MemberBookIndex();
+		Map<Long, Map<Long, Integer>> expected = new HashMap<>();
+		Random random = new Random(7);
+
+		for (int i = 0; i < 100_000; i++) {
+			// Few members with many books each: long probe runs shared by several members
+			long memberId = random.nextInt(300);
+			long bookId = random.nextInt(50);
+			int op = random.nextInt(10);
+			if (op == 0) {
+				index.removeMember(memberId);
+				expected.remove(memberId);
+			} else if (op < 4) {
+				Map<Long, Integer> books = expected.get(memberId);
+				boolean removed = books != null && books.remove(bookId) != null;
+				assertEquals(removed, index.remove(memberId, bookId));
+			} else {
+				index.put(memberId, bookId, op);
+				expected.computeIfAbsent(memberId, k -> new HashMap<>()).put(bookId, op);
+			}
+		}
+
+		int size = 0;
+		for (long memberId = 0; memberId < 300; memberId++) {
+			Map<Long, Integer> books = expected.getOrDefault(memberId, Map.of());
+			size += books.size();
+			long[] actual = index.books(memberId);
+			Arrays.sort(actual);
+			assertArrayEquals(books.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), actual);
+			for (long bookId = 0; bookId < 50; bookId++) {
+				assertEquals(books.getOrDefault(bookId, -1), index.getOrDefault(memberId, bookId, -1));
+			}
+		}
+		assertEquals(size, index.size());
+	}
+
+	@Test
+	void rejectsIdsThatDoNotFitInThePackedKey() {
+		MemberBookIndex index = new MemberBookIndex();
+		assertThrows(IllegalArgumentException.class, () -> index.put(1L << 32, 1L, 1));
+		assertThrows(IllegalArgumentException.class, () -> index.put(1L, -1L, 1));
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+	@Test
+	void firesEveryIdAtItsTickAcrossAllLevels() {
+		long now = 1_000_000;
+		TimingWheel wheel = new TimingWheel(1, now);
+		Map<Long, Long> deadlines = new HashMap<>();
+		Random random = new Random(42);
+
+		// From the next tick to beyond the top level (64^4 ticks)
+		for (long id = 0; id < 20_000; id++) {
+			long deadline = now + 1 + (long) Math.pow(random.nextDouble(), 4) * 20_000_000L;
+			wheel.schedule(id, deadline);
+			deadlines.put(id, deadline);
+		}
+		// Cancelled or rescheduled entries fire only as rescheduled
+		for (long id = 0; id < 2_000; id++) {
+			if (id % 2 == 0) {
+				assertTrue(wheel.cancel(id));
+				deadlines.remove(id);
+			} else {
+				long deadline = now + 1 + random.nextInt(100_000);
+				wheel.schedule(id, deadline);
+				deadlines.put(id, deadline);
+			}
+		}
+		assertEquals(deadlines.size(), wheel.size());
+
+		long[] clock = {now};
+		List<Long> fired = new ArrayList<>();
+		while (!deadlines.isEmpty() && clock[0] < now + 20_000_000L) {
+			clock[0] += 1 + random.nextInt(5_000);
+			wheel.advance(clock[0], id -> {
+				long deadline = deadlines.remove(id);
+				assertTrue(deadline <= clock[0], "fired early");
+				fired.add(deadline);
+			});
+			// Nothing overdue is left behind
+			for (long deadline : deadlines.values()) assertTrue(deadline > clock[0]);
+		}
+		assertTrue(deadlines.isEmpty());
+		assertEquals(0, wheel.size());
+		assertEquals(19_000, fired.size());
+	}
+
+	@Test
+	void pastDeadlinesFireOnTheNextTick() {
+		TimingWheel wheel = new TimingWheel(1_000, 10_000);
+		wheel.schedule(7, 2_000);
+		wheel.schedule(8, 10_500);
+		assertTrue(wheel.contains(7));
+
+		List<Long> fired = new ArrayList<>();
+		assertEquals(0, wheel.advance(10_999, fired::add));
+		assertEquals(2, wheel.advance(11_000, fired::add));
+		assertEquals(Set.of(7L, 8L), new HashSet<>(fired));
+		assertFalse(wheel.cancel(7));
+	}
+
+	@Test
+	void idleWheelJumpsToTheNewTime() {
+		TimingWheel wheel = new TimingWheel(1, 0);
+		assertEquals(0, wheel.advance(Long.MAX_VALUE / 2, id -> fail()));
+
+		List<Long> fired = new ArrayList<>();
+		wheel.schedule(1, Long.MAX_VALUE / 2 + 70);
+		wheel.advance(Long.MAX_VALUE / 2 + 69, fired::add);
+		assertTrue(fired.isEmpty());
+		wheel.advance(Long.MAX_VALUE / 2 + 70, fired::add);
+		assertEquals(List.of(1L), fired);
+	}
+}
@@ -0,0 +1,60 @@
+package com.library.managment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+	private static final String[] WORDS = {"Dune", "dust", "Emma", "Mrs", "Dalloway", "war", "and", "peace", "ward"};
+
+	@Test
+	void findsWhatContainsFindsUnderRandomUpdates() {
+		TrigramIndex index = new TrigramIndex();
+		Map<Long, String> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for (int i = 0; i < 20_000; i++) {
+			long id = random.nextInt(2_000);
+			if (random.nextInt(4) == 0) {
+				index.remove(id);
+				expected.remove(id);
+			} else {
+				String text = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+				index.put(id, text);
+				expected.put(id, text);
+			}
+		}
+		assertEquals(expected.size(), index.size());
+
+		for (String query : List.of("d", "DU", "dun", "une d", "war", "ward", "a", "ce du", "emma mrs", "zzz", "")) {
+			long[] want = expected.entrySet().stream()
+					.filter(e -> e.getValue().toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT)))
+					.mapToLong(Map.Entry::getKey).sorted().toArray();
+			assertArrayEquals(want, index.search(query), query);
+		}
+	}
+
+	@Test
+	void trigramsMustAppearInOrder() {
+		TrigramIndex index = new TrigramIndex();
+		// Holds "abc" and "bcd" but not "abcd"
+		index.put(1, "abc bcd");
+		index.put(2, "xabcdx");
+		assertArrayEquals(new long[]{2}, index.search("ABCD"));
+
+		index.put(2, "changed");
+		assertArrayEquals(new long[0], index.search("abcd"));
+		index.put(1, null);
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void idsMustFitInAnInt() {
+		TrigramIndex index = new TrigramIndex();
+		assertThrows(IllegalArgumentException.class, () -> index.put(-1, "abc"));
+		assertThrows(IllegalArgumentException.class, () -> index.put(1L << 31, "abc"));
+	}
+}
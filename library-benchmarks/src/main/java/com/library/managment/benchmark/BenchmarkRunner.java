@@ -0,0 +1,35 @@
+package com.library.managment.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks once per thread count (1, 8 and 64 by default).
+ * Any regular JMH option can be passed on the command line, e.g.
+ *   -p books=1000 -p members=10000 LibraryServiceBenchmark.returnBook
+ * and -Dbench.threads=1,4 overrides the thread counts.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String[] jmhArgs = Arrays.stream(args).filter(a -> !a.isBlank()).toArray(String[]::new);
+        CommandLineOptions cli = new CommandLineOptions(jmhArgs);
+
+        for (String threads : System.getProperty("bench.threads", "1,8,64").split(",")) {
+            int t = Integer.parseInt(threads.trim());
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(cli);
+            if (cli.getIncludes().isEmpty()) {
+                options.include(LibraryServiceBenchmark.class.getSimpleName());
+            }
+            options.threads(t)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-" + t + "-threads.json");
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.StripedLocks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Book lock acquisition: the original unbounded map of ReentrantLocks versus the
+ * fixed StripedLocks pool now used by LibraryService.
+ *
+ * "random" spreads requests over the whole catalog, "hot" sends every thread to
+ * the same book. The map keeps one lock per book ever touched, so with a large
+ * catalog it also pays for the allocation and the growing table.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookLockBenchmark {
+
+    @Param({"map", "striped"})
+    public String table;
+
+    @Param({"1000", "1000000"})
+    public int books;
+
+    @Param({"1024"})
+    public int stripes;
+
+    private Map<Long, Lock> lockMap;
+    private StripedLocks stripedLocks;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // Fresh table per iteration, like the nightly reset used to do
+        lockMap = new ConcurrentHashMap<>();
+        stripedLocks = new StripedLocks(stripes);
+    }
+
+    private Lock lockFor(long bookId) {
+        return "map".equals(table)
+                ? lockMap.computeIfAbsent(bookId, k -> new ReentrantLock())
+                : stripedLocks.lockFor(bookId);
+    }
+
+    // A tiny critical section, comparable to the in-memory queue updates
+    private long critical(long bookId) {
+        Lock lock = lockFor(bookId);
+        lock.lock();
+        try {
+            return bookId * 31 + System.identityHashCode(lock);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public long random() {
+        return critical(ThreadLocalRandom.current().nextLong(1, books + 1L));
+    }
+
+    @Benchmark
+    public long hot() {
+        return critical(1L);
+    }
+}
@@ -0,0 +1,136 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.BulkImportService;
+import com.library.managment.Sevices.SearchIndex;
+import com.library.managment.controllers.BookController;
+import com.library.managment.dto.ImportResult;
+import com.library.managment.model.Book;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeding the catalog: POST /book/batch (one JSON array, saveAll) vs the streaming
+ * bulk import.
+ *
+ * The baseline saves `baseline` books through BookController.createBooks in arrays of
+ * `array` books. The import then reads `rows` books from a generated NDJSON or CSV
+ * stream (never held in memory) through BulkImportService, committing every `chunk`
+ * rows. Both paths index the new books for search.
+ *
+ * Options are key=value arguments, e.g. rows=1000000 baseline=100000 array=10000 chunk=5000 format=csv
+ */
+public class BulkImportReport {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("rows", "1000000");
+        config.put("baseline", "100000");
+        config.put("array", "10000");
+        config.put("chunk", "5000");
+        config.put("format", "ndjson");
+        for (String arg : args) {
+            if (arg.isBlank()) continue;
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2 || !config.containsKey(kv[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + config.keySet());
+            }
+            config.put(kv[0], kv[1]);
+        }
+        int rows = Integer.parseInt(config.get("rows"));
+        int baseline = Integer.parseInt(config.get("baseline"));
+        int array = Integer.parseInt(config.get("array"));
+        BulkImportService.Format format = BulkImportService.Format.valueOf(config.get("format").toUpperCase());
+
+        try (LibraryFixture fixture = new LibraryFixture(4, 4, 0, false,
+                Map.of("library.import.chunk-size", config.get("chunk")))) {
+            BookController books = fixture.context().getBean(BookController.class);
+            BulkImportService importer = fixture.context().getBean(BulkImportService.class);
+            // The fixture inserted its books with explicit ids
+            fixture.context().getBean(JdbcTemplate.class).execute("ALTER TABLE book ALTER COLUMN id RESTART WITH 1000");
+
+            long start = System.nanoTime();
+            for (int from = 0; from < baseline; from += array) {
+                List<Book> batch = new ArrayList<>(array);
+                for (int i = from; i < Math.min(from + array, baseline); i++) {
+                    Book book = new Book();
+                    book.setTitle("Saved " + i);
+                    book.setAuthor("Author " + i % 1000);
+                    book.setImageUrl(i + ".jpg");
+                    book.setTotalCopies(2);
+                    batch.add(book);
+                }
+                books.createBooks(batch);
+            }
+            report("POST /book/batch (saveAll)", baseline, System.nanoTime() - start);
+
+            ImportResult result = importer.importBooks(new GeneratedBooks(rows, format), format, book -> {
+                book.setAvailableCopies(book.getTotalCopies());
+                book.setImageUrl(BookController.BASE_URL + book.getImageUrl());
+                return book;
+            });
+            report("POST /book/import (" + format.name().toLowerCase() + ", " + result.chunks() + " chunks)",
+                    result.rows(), result.millis() * 1_000_000);
+
+            long[] found = fixture.context().getBean(SearchIndex.class).searchBooks("Imported " + (rows - 1), null);
+            System.out.printf("Last imported book searchable: %b%n", found.length == 1);
+        }
+    }
+
+    private static void report(String label, long rows, long nanos) {
+        System.out.printf("%-44s %,10d rows %,9d ms %,10d rows/s%n", label, rows, nanos / 1_000_000,
+                nanos == 0 ? rows : rows * 1_000_000_000L / nanos);
+    }
+
+
+    // NDJSON or CSV books generated line by line as they are read
+    private static final class GeneratedBooks extends InputStream {
+        private final int rows;
+        private final BulkImportService.Format format;
+        private byte[] line;
+        private int pos;
+        private int next = -1;
+
+        GeneratedBooks(int rows, BulkImportService.Format format) {
+            this.rows = rows;
+            this.format = format;
+            this.line = format == BulkImportService.Format.CSV
+                    ? "title,author,imageUrl,totalCopies\n".getBytes(StandardCharsets.UTF_8) : new byte[0];
+        }
+
+        private boolean fill() {
+            if (pos < line.length) return true;
+            if (++next >= rows) return false;
+            String text = format == BulkImportService.Format.CSV
+                    ? "Imported " + next + ",Author " + next % 1000 + "," + next + ".jpg,2\n"
+                    : "{\"title\":\"Imported " + next + "\",\"author\":\"Author " + next % 1000
+                    + "\",\"imageUrl\":\"" + next + ".jpg\",\"totalCopies\":2}\n";
+            line = text.getBytes(StandardCharsets.UTF_8);
+            pos = 0;
+            return true;
+        }
+
+        @Override
+        public int read() {
+            return fill() ? line[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            int n = 0;
+            while (n < len && fill()) {
+                int count = Math.min(len - n, line.length - pos);
+                System.arraycopy(line, pos, b, off + n, count);
+                pos += count;
+                n += count;
+            }
+            return n == 0 ? -1 : n;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.managment.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates a slow database: wraps the application's DataSource so that every
+ * statement execution first waits for the configured latency.
+ *
+ * Registered by {@link LibraryFixture}; the latency can be changed at any time,
+ * so seeding runs at full speed and only the measured part is slowed down.
+ */
+public class DbLatency implements BeanPostProcessor {
+
+    private volatile long latencyNanos;
+
+    public void setLatencyMicros(long micros) {
+        latencyNanos = micros * 1_000;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return wrap(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    private void pause() {
+        long nanos = latencyNanos;
+        if (nanos > 0) LockSupport.parkNanos(nanos);
+    }
+
+    // Proxy that wraps returned connections and statements, and delays executions
+    private <T> T wrap(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().startsWith("execute") && target instanceof Statement) {
+                pause();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return wrapResult(method, result);
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private Object wrapResult(Method method, Object result) {
+        Class<?> returned = method.getReturnType();
+        if (result instanceof Connection connection && returned == Connection.class) {
+            return wrap(Connection.class, connection);
+        }
+        if (result instanceof Statement statement && Statement.class.isAssignableFrom(returned)) {
+            @SuppressWarnings("unchecked")
+            Class<Statement> type = (Class<Statement>) returned;
+            return wrap(type, statement);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.DurationTracker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a member's departure on the duration store, as a function of the total
+ * number of (book, member) entries in the library.
+ *
+ * "flat" is the original map keyed by (book, member) cleaned up with removeIf,
+ * "indexed" is DurationTracker. Each member waits for BOOKS_PER_MEMBER books;
+ * the departed member's entries are put back so the size stays constant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DurationTrackerBenchmark {
+
+    private static final int BOOKS_PER_MEMBER = 3;
+
+    // Key of the original implementation
+    record BookMember(Long bookId, Long memberId) {}
+
+    @Param({"flat", "indexed"})
+    public String store;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private Map<BookMember, Integer> flat;
+    private DurationTracker indexed;
+    private int members;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        members = entries / BOOKS_PER_MEMBER;
+        flat = new ConcurrentHashMap<>();
+        indexed = new DurationTracker();
+        for (long m = 0; m < members; m++) {
+            for (long b = 0; b < BOOKS_PER_MEMBER; b++) {
+                put(m * 7 + b, m);
+            }
+        }
+    }
+
+    private void put(Long bookId, Long memberId) {
+        if ("flat".equals(store)) {
+            flat.put(new BookMember(bookId, memberId), 2);
+        } else {
+            indexed.put(bookId, memberId, 2);
+        }
+    }
+
+    @Benchmark
+    public void memberLeaves() {
+        Long memberId = (long) ThreadLocalRandom.current().nextInt(members);
+        if ("flat".equals(store)) {
+            flat.keySet().removeIf(key -> key.memberId().equals(memberId));
+        } else {
+            indexed.removeMember(memberId);
+        }
+        for (long b = 0; b < BOOKS_PER_MEMBER; b++) {
+            put(memberId * 7 + b, memberId);
+        }
+    }
+}
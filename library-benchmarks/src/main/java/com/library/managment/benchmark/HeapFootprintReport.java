@@ -0,0 +1,167 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.DurationTracker;
+import com.library.managment.Sevices.WaitList;
+import com.library.managment.util.ConcurrentIdSet;
+import com.library.managment.util.ConcurrentLongObjectMap;
+import com.library.managment.util.MemberBookIndex;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retained heap of LibraryService's in-memory queue state, measured with JOL.
+ *
+ * The same library is loaded twice: into the original boxed collections
+ * (ConcurrentHashMap of Long, LinkedHashSet queues, a (book, member) record key
+ * for durations) and into the primitive structures used now. Then the hot-path
+ * lookups are replayed on both and the bytes they allocate are reported.
+ *
+ * Options are key=value arguments, e.g. entries=1000000 books=1000 members=1000000
+ */
+public class HeapFootprintReport {
+
+    // Key of the original duration tracker
+    record BookMember(Long bookId, Long memberId) {}
+
+    private final int entries;
+    private final int books;
+    private final int members;
+
+    // Original structures
+    private final Set<Long> boxedActiveUsers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, LinkedHashSet<Long>> boxedWaitList = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> boxedMemberBooks = new ConcurrentHashMap<>();
+    private final Map<BookMember, Integer> boxedDurations = new ConcurrentHashMap<>();
+
+    // Current structures
+    private final ConcurrentIdSet activeUsers = new ConcurrentIdSet();
+    private final ConcurrentLongObjectMap<WaitList> waitList = new ConcurrentLongObjectMap<>();
+    private final MemberBookIndex memberBooks = new MemberBookIndex();
+    private final DurationTracker durations = new DurationTracker();
+
+    public HeapFootprintReport(int entries, int books, int members) {
+        this.entries = entries;
+        this.books = books;
+        this.members = members;
+    }
+
+    private long bookOf(int entry) {
+        return 1 + entry % books;
+    }
+
+    // Spread the queues over the members deterministically, without duplicates per book
+    private long memberOf(int entry) {
+        return 1 + (entry / books + (long) (entry % books) * 7919) % members;
+    }
+
+    private void load() {
+        for (long m = 1; m <= members; m++) {
+            boxedActiveUsers.add(m);
+            activeUsers.add(m);
+        }
+        for (int e = 0; e < entries; e++) {
+            long bookId = bookOf(e);
+            long memberId = memberOf(e);
+
+            boxedWaitList.computeIfAbsent(bookId, k -> new LinkedHashSet<>()).add(memberId);
+            boxedMemberBooks.computeIfAbsent(memberId, k -> ConcurrentHashMap.newKeySet()).add(bookId);
+            boxedDurations.put(new BookMember(bookId, memberId), 2);
+
+            waitList.computeIfAbsent(bookId, k -> new WaitList()).add(memberId);
+            memberBooks.put(memberId, bookId, 1);
+            durations.put(bookId, memberId, 2);
+        }
+    }
+
+    private static long size(Object root) {
+        return GraphLayout.parseInstance(root).totalSize();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // Lookups done by requestBook / approveNextReader for every entry
+    private long boxedLookups() {
+        long hits = 0;
+        for (int e = 0; e < entries; e++) {
+            Long bookId = bookOf(e);
+            Long memberId = memberOf(e);
+            if (boxedActiveUsers.contains(memberId)) hits++;
+            if (boxedWaitList.get(bookId).contains(memberId)) hits++;
+            hits += boxedDurations.getOrDefault(new BookMember(bookId, memberId), 1);
+        }
+        return hits;
+    }
+
+    private long primitiveLookups() {
+        long hits = 0;
+        for (int e = 0; e < entries; e++) {
+            long bookId = bookOf(e);
+            long memberId = memberOf(e);
+            if (activeUsers.contains(memberId)) hits++;
+            if (waitList.get(bookId).contains(memberId)) hits++;
+            hits += durations.getOrDefault(bookId, memberId, 1);
+        }
+        return hits;
+    }
+
+    private static String row(String name, long boxed, long primitive) {
+        return String.format("%-22s %12.1f %12.1f %8.1fx", name, boxed / 1e6, primitive / 1e6, (double) boxed / primitive);
+    }
+
+    public void run() {
+        System.out.printf("Loading %d waitlist entries over %d books and %d active members%n", entries, books, members);
+        load();
+
+        System.out.println();
+        System.out.printf("%-22s %12s %12s %9s%n", "structure", "boxed MB", "primitive MB", "ratio");
+        long[] boxed = {size(boxedActiveUsers), size(boxedWaitList), size(boxedMemberBooks), size(boxedDurations)};
+        long[] primitive = {size(activeUsers), size(waitList), size(memberBooks), size(durations)};
+        String[] names = {"activeUsers", "bookWaitList", "memberWaitingBooks", "durationTracker"};
+        long boxedTotal = 0, primitiveTotal = 0;
+        for (int i = 0; i < names.length; i++) {
+            System.out.println(row(names[i], boxed[i], primitive[i]));
+            boxedTotal += boxed[i];
+            primitiveTotal += primitive[i];
+        }
+        System.out.println(row("total", boxedTotal, primitiveTotal));
+
+        // Warm up both paths first so JIT compilation does not count as allocation
+        for (int i = 0; i < 3; i++) {
+            boxedLookups();
+            primitiveLookups();
+        }
+        long before = allocatedBytes();
+        long checksum = boxedLookups();
+        long boxedAllocated = allocatedBytes() - before;
+        before = allocatedBytes();
+        checksum -= primitiveLookups();
+        long primitiveAllocated = allocatedBytes() - before;
+
+        System.out.println();
+        System.out.printf("Hot-path lookups (%d x contains/contains/getOrDefault)%n", entries);
+        System.out.printf("  boxed:     %.1f bytes allocated per lookup%n", (double) boxedAllocated / entries);
+        System.out.printf("  primitive: %.1f bytes allocated per lookup%n", (double) primitiveAllocated / entries);
+        if (checksum != 0) throw new IllegalStateException("Structures disagree");
+    }
+
+    public static void main(String[] args) {
+        Map<String, Integer> config = new LinkedHashMap<>();
+        config.put("entries", 1_000_000);
+        config.put("books", 1_000);
+        config.put("members", 1_000_000);
+        for (String arg : args) {
+            if (arg.isBlank()) continue;
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2 || !config.containsKey(kv[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + config.keySet());
+            }
+            config.put(kv[0], Integer.parseInt(kv[1]));
+        }
+        new HeapFootprintReport(config.get("entries"), config.get("books"), config.get("members")).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.ManagmentApplication;
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.WaitListJournal;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Restart with full waiting lists: how long LibraryService needs to get its queues back.
+ *
+ * A first application run seeds the database and journals `entries` queue entries
+ * spread over `books` titles. A second run on the same database then replays the
+ * journal in @PostConstruct; the time to load the active members, the replay time, the
+ * application start and the background load of the queued members are reported separately.
+ *
+ * Options are key=value arguments, e.g. entries=1000000 books=1000 members=1000000 compact=true
+ * (compact=true folds the log into a snapshot before the restart).
+ */
+public class JournalReplayReport {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("entries", "1000000");
+        config.put("books", "1000");
+        config.put("members", "1000000");
+        config.put("compact", "false");
+        for (String arg : args) {
+            if (arg.isBlank()) continue;
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2 || !config.containsKey(kv[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + config.keySet());
+            }
+            config.put(kv[0], kv[1]);
+        }
+        int entries = Integer.parseInt(config.get("entries"));
+        int books = Integer.parseInt(config.get("books"));
+        int members = Integer.parseInt(config.get("members"));
+
+        Path dir = Files.createTempDirectory("library-journal");
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("spring.datasource.url", "jdbc:h2:mem:journal-report;DB_CLOSE_DELAY=-1");
+        overrides.put("library.journal.enabled", "true");
+        overrides.put("library.journal.dir", dir.toString());
+        overrides.put("library.journal.log-file-mb", "256");
+        try {
+            // First run: seed and queue everybody, straight through the journal
+            overrides.put("spring.jpa.hibernate.ddl-auto", "create");
+            LibraryFixture fixture = new LibraryFixture(books, members, 0, false, overrides);
+            WaitListJournal journal = fixture.context().getBean(WaitListJournal.class);
+            long start = System.nanoTime();
+            for (int e = 0; e < entries; e++) {
+                journal.enqueue(1 + e % books, 1 + (e / books + (long) (e % books) * 7919) % members, 2);
+            }
+            System.out.printf("Journaled %d entries in %d ms%n", entries, (System.nanoTime() - start) / 1_000_000);
+            if (Boolean.parseBoolean(config.get("compact"))) {
+                fixture.libraryService().compactJournal();
+            }
+            fixture.close();
+
+            // Second run: same database, queues come back from the journal
+            overrides.put("spring.jpa.hibernate.ddl-auto", "none");
+            start = System.nanoTime();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ManagmentApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(LibraryFixture.properties(false, overrides))
+                    .run()) {
+                long bootMillis = (System.nanoTime() - start) / 1_000_000;
+                LibraryService service = context.getBean(LibraryService.class);
+                int notifications = service.getAdminNotifications().size();
+                while (service.getQueuedMembersMillis() < 0) Thread.sleep(50);
+                System.out.printf("%nActive members loaded: %d ms, journal replay: %d ms, application start: %d ms, notifications at start: %d, queued members loaded after start: %d ms%n",
+                        service.getActiveMembersMillis(), service.getJournalReplayMillis(), bootMillis,
+                        notifications, service.getQueuedMembersMillis());
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.managment.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Collects raw latency samples for one endpoint and reports percentiles.
+ * Samples are kept in full, which is fine for simulation runs of a few minutes.
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long nanos, boolean ok) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        if (!ok) errors++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized String report(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("%-40s %8d %6d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                name, count, errors, count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    public static String header() {
+        return String.format("%-40s %8s %6s %10s %9s %9s %9s %9s",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
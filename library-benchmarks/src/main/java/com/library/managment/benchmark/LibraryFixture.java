@@ -0,0 +1,213 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.ManagmentApplication;
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.Sevices.SearchIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the real backend against an embedded H2 database and seeds a catalog.
+ *
+ * Book ids are laid out as follows:
+ *   1                      hot book, practically unlimited copies (contention scenario)
+ *   2                      sold-out book with a deep waiting list
+ *   3                      book with copies AND a deep waiting list (admin approvals)
+ *   4 .. 3+notifiedBooks   books with a short queue, so the admin has notifications
+ *   the rest               general catalog, practically unlimited copies
+ *
+ * Member ids 1..waitlistDepth wait for book 2, the next waitlistDepth members wait
+ * for book 3, and every member above that is free for general borrowing.
+ */
+public class LibraryFixture implements AutoCloseable {
+
+    public static final long HOT_BOOK = 1;
+    public static final long SOLD_OUT_BOOK = 2;
+    public static final long APPROVAL_BOOK = 3;
+
+    private static final int UNLIMITED_COPIES = 1_000_000_000;
+    private static final int NOTIFIED_BOOKS = 200;
+    private static final int INSERT_BATCH = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final LibraryService libraryService;
+    private final JdbcTemplate jdbc;
+    private final DbLatency dbLatency = new DbLatency();
+
+    private final int books;
+    private final int members;
+    private final int waitlistDepth;
+    private final int notifiedBooks;
+
+    public LibraryFixture(int books, int members, int waitlistDepth, boolean webServer) {
+        this(books, members, waitlistDepth, webServer, Map.of());
+    }
+
+    // overrides replace or add Spring properties, e.g. to enable the journal
+    public LibraryFixture(int books, int members, int waitlistDepth, boolean webServer, Map<String, Object> overrides) {
+        if (books < 4) {
+            throw new IllegalArgumentException("At least 4 books are needed, got " + books);
+        }
+        if (members <= 2 * waitlistDepth + 3) {
+            throw new IllegalArgumentException("members must be greater than 2 * waitlistDepth + 3");
+        }
+        this.books = books;
+        this.members = members;
+        this.waitlistDepth = waitlistDepth;
+        this.notifiedBooks = Math.min(NOTIFIED_BOOKS, books - 3);
+
+        this.context = new SpringApplicationBuilder(ManagmentApplication.class)
+                .web(webServer ? WebApplicationType.SERVLET : WebApplicationType.NONE)
+                .properties(properties(webServer, overrides))
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(dbLatency))
+                .run();
+        this.libraryService = context.getBean(LibraryService.class);
+        this.jdbc = context.getBean(JdbcTemplate.class);
+
+        seed();
+    }
+
+    static Map<String, Object> properties(boolean webServer, Map<String, Object> overrides) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("spring.datasource.url", "jdbc:h2:mem:library-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        props.put("spring.datasource.username", "sa");
+        props.put("spring.datasource.password", "");
+        props.put("spring.datasource.hikari.maximum-pool-size", "80");
+        props.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        props.put("spring.jpa.open-in-view", "false");
+        props.put("spring.main.banner-mode", "off");
+        props.put("logging.level.root", "WARN");
+        props.put("server.port", webServer ? "0" : "-1");
+        // Every fixture starts from empty queues
+        props.put("library.journal.enabled", "false");
+        props.putAll(overrides);
+        return props;
+    }
+
+    private void seed() {
+        long start = System.nanoTime();
+
+        List<Object[]> bookRows = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= books; id++) {
+            int copies = (id == SOLD_OUT_BOOK || isNotifiedBook(id)) ? 0 : UNLIMITED_COPIES;
+            bookRows.add(new Object[]{id, "Book " + id, "Author " + (id % 1000), id + ".jpg", copies, copies});
+            if (bookRows.size() == INSERT_BATCH) {
+                insertBooks(bookRows);
+            }
+        }
+        insertBooks(bookRows);
+
+        List<Object[]> memberRows = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= members; id++) {
+            memberRows.add(new Object[]{id, "Member " + id, id + ".jpg", true});
+            if (memberRows.size() == INSERT_BATCH) {
+                insertMembers(memberRows);
+            }
+        }
+        insertMembers(memberRows);
+        // Rows went in behind the controllers' back
+        context.getBean(SearchIndex.class).rebuild();
+
+        for (long id = 1; id <= members; id++) {
+            libraryService.userEntersLibrary(id);
+        }
+
+        // Deep waiting lists
+        for (long m = 1; m <= waitlistDepth; m++) {
+            libraryService.requestBook(m, SOLD_OUT_BOOK, 2);
+        }
+        jdbc.update("UPDATE book SET available_copies = 0 WHERE id = ?", APPROVAL_BOOK);
+        for (long m = waitlistDepth + 1; m <= 2L * waitlistDepth; m++) {
+            libraryService.requestBook(m, APPROVAL_BOOK, 2);
+        }
+        jdbc.update("UPDATE book SET available_copies = ? WHERE id = ?", UNLIMITED_COPIES, APPROVAL_BOOK);
+        libraryService.bookChanged(APPROVAL_BOOK);
+
+        // Short queues that become notifications once a copy shows up
+        long member = firstGeneralMember();
+        for (long bookId = 4; bookId < 4 + notifiedBooks; bookId++) {
+            for (int i = 0; i < 3; i++) {
+                libraryService.requestBook(member + i, bookId, 2);
+            }
+            jdbc.update("UPDATE book SET available_copies = 1, total_copies = 1 WHERE id = ?", bookId);
+            libraryService.bookChanged(bookId);
+            // This request is queued behind the others and refreshes the admin notifications
+            libraryService.requestBook(member + 3, bookId, 2);
+        }
+
+        System.out.printf("Seeded %d books, %d members, waitlist depth %d in %d ms%n",
+                books, members, waitlistDepth, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private boolean isNotifiedBook(long id) {
+        return id >= 4 && id < 4 + notifiedBooks;
+    }
+
+    private void insertBooks(List<Object[]> rows) {
+        jdbc.batchUpdate("INSERT INTO book (id, title, author, image_url, total_copies, available_copies) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private void insertMembers(List<Object[]> rows) {
+        jdbc.batchUpdate("INSERT INTO member (id, name, image_url, is_active) VALUES (?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    // Members queued on SOLD_OUT_BOOK
+    public long[] soldOutQueue() {
+        return range(1, waitlistDepth);
+    }
+
+    // Members queued on APPROVAL_BOOK
+    public long[] approvalQueue() {
+        return range(waitlistDepth + 1, 2L * waitlistDepth);
+    }
+
+    public long firstGeneralMember() {
+        return 2L * waitlistDepth + 1;
+    }
+
+    public long firstGeneralBook() {
+        return 4L + notifiedBooks;
+    }
+
+    public int books() {
+        return books;
+    }
+
+    public int members() {
+        return members;
+    }
+
+    private static long[] range(long from, long to) {
+        long[] ids = new long[(int) (to - from + 1)];
+        for (int i = 0; i < ids.length; i++) ids[i] = from + i;
+        return ids;
+    }
+
+    public LibraryService libraryService() {
+        return libraryService;
+    }
+
+    // Delay every SQL statement from now on (0 = no delay)
+    public void setDbLatencyMicros(long micros) {
+        dbLatency.setLatencyMicros(micros);
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
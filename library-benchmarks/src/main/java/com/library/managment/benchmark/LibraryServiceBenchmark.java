@@ -0,0 +1,200 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.dto.BookBorrowResponse;
+import com.library.managment.model.Notification;
+import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.ReadingActivityRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of LibraryService against a seeded embedded database.
+ *
+ * Every benchmark leaves the in-memory queues in the state it found them
+ * (borrowed copies are returned, departed members re-enter and re-queue),
+ * so the numbers do not drift with the length of the run.
+ * Thread counts are supplied by {@link BenchmarkRunner}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class LibraryServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Library {
+
+        @Param({"1000", "100000"})
+        public int books;
+
+        @Param({"10000", "1000000"})
+        public int members;
+
+        @Param({"4000"})
+        public int waitlistDepth;
+
+        // false turns the library.* meters into no-ops, to measure the instrumentation overhead
+        @Param({"true"})
+        public boolean metrics;
+
+        LibraryFixture fixture;
+        LibraryService service;
+        ReadingActivityRepository activities;
+
+        // Members currently queued, handed out to threads one at a time
+        final ConcurrentLinkedQueue<Long> approvalQueue = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Long> soldOutQueue = new ConcurrentLinkedQueue<>();
+        long[] soldOutMembers;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fixture = new LibraryFixture(books, members, waitlistDepth, false,
+                    Map.of("management.metrics.enable.library", metrics));
+            service = fixture.libraryService();
+            activities = fixture.context().getBean(ReadingActivityRepository.class);
+            for (long m : fixture.approvalQueue()) approvalQueue.add(m);
+            soldOutMembers = fixture.soldOutQueue();
+            for (long m : soldOutMembers) soldOutQueue.add(m);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            fixture.close();
+        }
+
+        long randomGeneralMember() {
+            return ThreadLocalRandom.current().nextLong(fixture.firstGeneralMember(), fixture.members() + 1L);
+        }
+
+        long randomGeneralBook() {
+            return ThreadLocalRandom.current().nextLong(fixture.firstGeneralBook(), fixture.books() + 1L);
+        }
+
+        void returnAll(long memberId) {
+            for (ReadingActivity activity : activities.findByMemberIdAndIsActiveTrue(memberId)) {
+                service.returnBook(activity.getId());
+            }
+        }
+    }
+
+    /** A member and book picked before each invocation, cleaned up after it. */
+    @State(Scope.Thread)
+    public static class Borrow {
+        long memberId;
+        long bookId;
+
+        @Setup(Level.Invocation)
+        public void pick(Library library) {
+            memberId = library.randomGeneralMember();
+            bookId = library.randomGeneralBook();
+        }
+
+        @TearDown(Level.Invocation)
+        public void giveBack(Library library) {
+            library.returnAll(memberId);
+        }
+    }
+
+    /** An active loan prepared before each returnBook invocation. */
+    @State(Scope.Thread)
+    public static class Loan {
+        long memberId;
+        long activityId;
+
+        @Setup(Level.Invocation)
+        public void borrow(Library library) {
+            memberId = library.randomGeneralMember();
+            library.returnAll(memberId);
+            library.service.requestBook(memberId, library.randomGeneralBook(), 2);
+            activityId = library.activities.findByMemberIdAndIsActiveTrue(memberId).get(0).getId();
+        }
+    }
+
+    /** A queued member taken from the approval book's waiting list, re-queued afterwards. */
+    @State(Scope.Thread)
+    public static class Approval {
+        Long memberId;
+
+        @Setup(Level.Invocation)
+        public void take(Library library) {
+            memberId = library.approvalQueue.poll();
+        }
+
+        @TearDown(Level.Invocation)
+        public void requeue(Library library) {
+            if (memberId == null) return;
+            library.returnAll(memberId);
+            library.service.requestBook(memberId, LibraryFixture.APPROVAL_BOOK, 2);
+            library.approvalQueue.add(memberId);
+        }
+    }
+
+    /** A queued member who leaves, then comes back and queues again. */
+    @State(Scope.Thread)
+    public static class Departure {
+        Long memberId;
+
+        @Setup(Level.Invocation)
+        public void take(Library library) {
+            memberId = library.soldOutQueue.poll();
+        }
+
+        @TearDown(Level.Invocation)
+        public void comeBack(Library library) {
+            if (memberId == null) return;
+            library.service.userEntersLibrary(memberId);
+            library.service.requestBook(memberId, LibraryFixture.SOLD_OUT_BOOK, 2);
+            library.soldOutQueue.add(memberId);
+        }
+    }
+
+    @Benchmark
+    public BookBorrowResponse requestBookAvailable(Library library, Borrow borrow) {
+        return library.service.requestBook(borrow.memberId, borrow.bookId, 2);
+    }
+
+    // Member already in a deep queue asks again: measures the queue rank walk
+    @Benchmark
+    public BookBorrowResponse requestBookWaitlisted(Library library) {
+        long[] queued = library.soldOutMembers;
+        long memberId = queued[ThreadLocalRandom.current().nextInt(queued.length)];
+        return library.service.requestBook(memberId, LibraryFixture.SOLD_OUT_BOOK, 2);
+    }
+
+    @Benchmark
+    public void returnBook(Library library, Loan loan) {
+        library.service.returnBook(loan.activityId);
+    }
+
+    @Benchmark
+    public BookBorrowResponse approveNextReader(Library library, Approval approval) {
+        if (approval.memberId == null) return null;
+        return library.service.approveNextReader(LibraryFixture.APPROVAL_BOOK, approval.memberId);
+    }
+
+    @Benchmark
+    public void userLeavesLibrary(Library library, Departure departure) {
+        if (departure.memberId == null) return;
+        library.service.userLeavesLibrary(departure.memberId);
+    }
+
+    @Benchmark
+    public List<Notification> getAdminNotifications(Library library) {
+        return library.service.getAdminNotifications();
+    }
+
+    // Every thread borrows and returns the same title: measures the per-book lock under contention
+    @Benchmark
+    public void contendedHotBook(Library library) {
+        long memberId = library.randomGeneralMember();
+        library.service.requestBook(memberId, LibraryFixture.HOT_BOOK, 2);
+        library.returnAll(memberId);
+    }
+}
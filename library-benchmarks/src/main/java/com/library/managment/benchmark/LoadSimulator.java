@@ -0,0 +1,229 @@
+package com.library.managment.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.managment.Sevices.LibraryService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end "library day" against the real REST layer, JPA and in-memory queues.
+ *
+ * Requests arrive open-loop (Poisson) at a fixed rate and are executed by a pool of
+ * simulated clients. Latency is measured from the scheduled arrival time, so a
+ * backed-up server shows up in the percentiles instead of slowing the arrivals down.
+ * After the day the 20:00 reset runs and its duration is reported.
+ *
+ * Options are key=value arguments, e.g.
+ *   books=1000 members=10000 copies=2 rate=300 clients=64 duration=60
+ *   mix=toggle:5,borrow:45,approve:20,return:30 hours=2
+ */
+public class LoadSimulator {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("books", "1000");
+        DEFAULTS.put("members", "10000");
+        DEFAULTS.put("copies", "2");
+        DEFAULTS.put("rate", "300");
+        DEFAULTS.put("clients", "64");
+        DEFAULTS.put("duration", "60");
+        DEFAULTS.put("mix", "toggle:5,borrow:45,approve:20,return:30");
+        DEFAULTS.put("hours", "2");
+    }
+
+    private final Map<String, String> config;
+    private final LibraryFixture fixture;
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    // Members who most likely hold a loan, candidates for the "return" operation
+    private final ConcurrentLinkedQueue<Long> borrowers = new ConcurrentLinkedQueue<>();
+
+    private final String[] operations;
+    private final int[] cumulativeWeights;
+
+    public LoadSimulator(Map<String, String> config) {
+        this.config = config;
+
+        String[] entries = config.get("mix").split(",");
+        operations = new String[entries.length];
+        cumulativeWeights = new int[entries.length];
+        int total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] kv = entries[i].split(":");
+            operations[i] = kv[0].trim();
+            total += Integer.parseInt(kv[1].trim());
+            cumulativeWeights[i] = total;
+        }
+
+        fixture = new LibraryFixture(intOption("books"), intOption("members"), 0, true);
+        baseUrl = "http://localhost:" + fixture.context().getEnvironment().getProperty("local.server.port");
+
+        // Limited copies, so popular titles build up waiting lists during the day
+        int copies = intOption("copies");
+        fixture.context().getBean(JdbcTemplate.class).update(
+                "UPDATE book SET total_copies = ?, available_copies = ? WHERE id = ? OR id >= ?",
+                copies, copies, LibraryFixture.HOT_BOOK, fixture.firstGeneralBook());
+    }
+
+    private int intOption(String key) {
+        return Integer.parseInt(config.get(key));
+    }
+
+    public void run() throws InterruptedException {
+        LibraryService service = fixture.libraryService();
+        double rate = intOption("rate");
+        long durationNanos = TimeUnit.SECONDS.toNanos(intOption("duration"));
+        ExecutorService clients = Executors.newFixedThreadPool(intOption("clients"));
+
+        System.out.printf("Simulating %d s at %.0f req/s with mix %s%n", intOption("duration"), rate, config.get("mix"));
+        long lockWaitBefore = service.getLockWaitNanos();
+        long start = System.nanoTime();
+        long next = start;
+        while (next - start < durationNanos) {
+            // Exponential inter-arrival times give a Poisson arrival process
+            next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rate * 1e9);
+            long scheduled = next;
+            LockSupport.parkNanos(scheduled - System.nanoTime());
+            String operation = pickOperation();
+            clients.execute(() -> execute(operation, scheduled));
+        }
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long lockWait = service.getLockWaitNanos() - lockWaitBefore;
+
+        long resetStart = System.nanoTime();
+        service.resetLibraryMemory();
+        long resetMillis = (System.nanoTime() - resetStart) / 1_000_000;
+
+        int total = 0;
+        System.out.println();
+        System.out.println(LatencyRecorder.header());
+        for (LatencyRecorder recorder : new TreeMap<>(recorders).values()) {
+            System.out.println(recorder.report(seconds));
+            total += recorder.count();
+        }
+        System.out.printf("%nTotal: %d requests in %.1f s (%.1f req/s)%n", total, seconds, total / seconds);
+        System.out.printf("Book lock wait: %.1f ms total%n", lockWait / 1e6);
+        System.out.printf("20:00 reset: %d ms%n", resetMillis);
+    }
+
+    private String pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void execute(String operation, long scheduled) {
+        try {
+            switch (operation) {
+                case "toggle" -> toggle(scheduled);
+                case "borrow" -> borrow(scheduled);
+                case "approve" -> approve(scheduled);
+                case "return" -> giveBack(scheduled);
+                default -> throw new IllegalArgumentException("Unknown operation " + operation);
+            }
+        } catch (Exception e) {
+            recorder("client errors").record(0, false);
+        }
+    }
+
+    private long randomMember() {
+        return ThreadLocalRandom.current().nextLong(fixture.firstGeneralMember(), fixture.members() + 1L);
+    }
+
+    // Skewed towards low ids: a handful of bestsellers get most of the requests
+    private long randomBook() {
+        long first = fixture.firstGeneralBook();
+        double u = ThreadLocalRandom.current().nextDouble();
+        return first + (long) ((fixture.books() - first + 1) * u * u * u);
+    }
+
+    private void toggle(long scheduled) throws Exception {
+        call("POST", "/member/toggle-active/" + randomMember(), "POST /member/toggle-active/{id}", scheduled);
+    }
+
+    private void borrow(long scheduled) throws Exception {
+        long memberId = randomMember();
+        JsonNode response = call("POST",
+                "/member/borrow/" + memberId + "/" + randomBook() + "?duration=" + config.get("hours"),
+                "POST /member/borrow/{memberId}/{bookId}", scheduled);
+        if (response != null && response.path("success").asBoolean() && response.path("rank").isMissingNode()) {
+            borrowers.add(memberId);
+        }
+    }
+
+    private void approve(long scheduled) throws Exception {
+        JsonNode notifications = call("GET", "/library/notifications", "GET /library/notifications", scheduled);
+        if (notifications == null || notifications.isEmpty()) return;
+
+        JsonNode notification = notifications.get(ThreadLocalRandom.current().nextInt(notifications.size()));
+        long bookId = notification.path("book").path("id").asLong();
+        long memberId = notification.path("member").path("id").asLong();
+        JsonNode response = call("POST", "/library/approve/" + bookId + "/" + memberId,
+                "POST /library/approve/{bookId}/{memberId}", System.nanoTime());
+        if (response != null && response.path("success").asBoolean()) {
+            borrowers.add(memberId);
+        }
+    }
+
+    private void giveBack(long scheduled) throws Exception {
+        Long memberId = borrowers.poll();
+        if (memberId == null) return;
+
+        JsonNode loans = call("GET", "/member/borrowed/" + memberId, "GET /member/borrowed/{memberId}", scheduled);
+        if (loans == null || loans.isEmpty()) return;
+
+        call("POST", "/member/return/" + loans.get(0).path("id").asLong(),
+                "POST /member/return/{activityId}", System.nanoTime());
+    }
+
+    private JsonNode call(String method, String path, String endpoint, long scheduled) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        boolean ok = response.statusCode() < 400;
+        recorder(endpoint).record(System.nanoTime() - scheduled, ok);
+        return ok && !response.body().isEmpty() ? mapper.readTree(response.body()) : null;
+    }
+
+    private LatencyRecorder recorder(String endpoint) {
+        return recorders.computeIfAbsent(endpoint, LatencyRecorder::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (arg.isBlank()) continue;
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2 || !DEFAULTS.containsKey(kv[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            config.put(kv[0], kv[1]);
+        }
+
+        LoadSimulator simulator = new LoadSimulator(config);
+        try {
+            simulator.run();
+        } finally {
+            simulator.fixture.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.LibraryService;
+import com.library.managment.model.ReadingActivity;
+import com.library.managment.repository.ReadingActivityRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Book lock hold time as a function of database latency.
+ *
+ * Every thread borrows and returns the same title while each SQL statement is
+ * delayed by dbLatencyMicros (see {@link DbLatency}). Throughput follows the
+ * database, but since only in-memory work happens under the book lock, the
+ * time the lock is held per operation must not. It is printed at the end of
+ * each trial from LibraryService#getLockHoldNanos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockHoldBenchmark {
+
+    @Param({"0", "500", "2000"})
+    public long dbLatencyMicros;
+
+    private LibraryFixture fixture;
+    private LibraryService service;
+    private ReadingActivityRepository activities;
+
+    private final LongAdder operations = new LongAdder();
+    private long holdBefore;
+    private long waitBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new LibraryFixture(1000, 10000, 100, false);
+        service = fixture.libraryService();
+        activities = fixture.context().getBean(ReadingActivityRepository.class);
+        fixture.setDbLatencyMicros(dbLatencyMicros);
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        operations.reset();
+        holdBefore = service.getLockHoldNanos();
+        waitBefore = service.getLockWaitNanos();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long ops = Math.max(1, operations.sum());
+        System.out.printf("%n  db latency %d us: lock held %.2f us, waited %.2f us per borrow+return (%d ops)%n",
+                dbLatencyMicros,
+                (service.getLockHoldNanos() - holdBefore) / 1e3 / ops,
+                (service.getLockWaitNanos() - waitBefore) / 1e3 / ops,
+                ops);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void borrowAndReturnHotBook() {
+        long memberId = ThreadLocalRandom.current().nextLong(fixture.firstGeneralMember(), fixture.members() + 1L);
+        service.requestBook(memberId, LibraryFixture.HOT_BOOK, 2);
+        for (ReadingActivity activity : activities.findByMemberIdAndIsActiveTrue(memberId)) {
+            service.returnBook(activity.getId());
+        }
+        operations.increment();
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.Sevices.LibraryMetrics;
+import com.library.managment.Sevices.StripedLocks;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Cost of the LibraryService meters on the paths that record them most often.
+ *
+ * "lockCycle" takes and releases a book lock the way LibraryService does, recording
+ * the hold time; "operation" records one requestBook duration. With metrics=false the
+ * meters are denied like management.metrics.enable.library=false does, so they are
+ * no-ops and only the System.nanoTime() calls remain.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    @Param({"1000"})
+    public int books;
+
+    private PrometheusMeterRegistry registry;
+    private LibraryMetrics libraryMetrics;
+    private final StripedLocks locks = new StripedLocks(1024);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        if (!metrics) {
+            registry.config().meterFilter(MeterFilter.denyNameStartsWith("library"));
+        }
+        libraryMetrics = new LibraryMetrics(registry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public long lockCycle() {
+        long bookId = ThreadLocalRandom.current().nextLong(1, books + 1L);
+        Lock lock = locks.lockFor(bookId);
+        lock.lock();
+        long lockedAt = System.nanoTime();
+        try {
+            return bookId * 31;
+        } finally {
+            libraryMetrics.lockHeld(System.nanoTime() - lockedAt);
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public void operation() {
+        libraryMetrics.requestBook(ThreadLocalRandom.current().nextLong(100_000, 10_000_000));
+    }
+}
@@ -0,0 +1,76 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.controllers.BookController;
+import com.library.managment.dto.CursorSlice;
+import com.library.managment.model.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one catalog page of 9 books, first page vs page 10,000.
+ *
+ * "offset" is /book/pageable (LIMIT/OFFSET plus a COUNT(*) per page), "keyset" is
+ * /book/slice sorted by id and "keysetTitle" /book/slice sorted by title, both
+ * starting from the cursor of the slice before. The cursors are found at setup by
+ * walking the slices once. H2 would serve a repeated query from its result cache,
+ * which is turned off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+
+    private static final int BOOKS = 100_000;
+    private static final int SIZE = 9;
+
+    @Param({"0", "10000"})
+    public int page;
+
+    private LibraryFixture fixture;
+    private BookController books;
+    private String idCursor;
+    private String titleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new LibraryFixture(BOOKS, 1000, 0, false, Map.of("spring.datasource.url",
+                "jdbc:h2:mem:pagination-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE"));
+        books = fixture.context().getBean(BookController.class);
+        idCursor = cursorBefore("id");
+        titleCursor = cursorBefore("title");
+    }
+
+    // Cursor that the slice before the measured page hands out
+    private String cursorBefore(String sort) {
+        String cursor = null;
+        for (int i = 0; i < page; i++) {
+            cursor = books.getBooksSlice(SIZE, sort, null, cursor).getNextCursor();
+        }
+        return cursor;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object offset() {
+        return books.getAllBooksPageable(page, SIZE, null, null);
+    }
+
+    @Benchmark
+    public CursorSlice<Book> keyset() {
+        return books.getBooksSlice(SIZE, "id", null, idCursor);
+    }
+
+    @Benchmark
+    public CursorSlice<Book> keysetTitle() {
+        return books.getBooksSlice(SIZE, "title", null, titleCursor);
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.managment.benchmark;
+
+import com.library.managment.controllers.BookController;
+import com.library.managment.model.Book;
+import com.library.managment.repository.BookRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of a title search over 100,000 books, as typed in the search box.
+ *
+ * "like" is the query /book/pageable?title= used to run (LIKE '%text%' plus a COUNT(*)),
+ * "index" is /book/pageable?title= on the in-memory trigram index. "ok 4242" matches
+ * 11 titles, "ok 4" 11,111 and "4" about half the catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final int BOOKS = 100_000;
+    private static final int SIZE = 9;
+
+    @Param({"ok 4242", "ok 4", "4"})
+    public String title;
+
+    private LibraryFixture fixture;
+    private BookController books;
+    private BookRepository bookRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // No H2 result cache, as in PaginationBenchmark
+        fixture = new LibraryFixture(BOOKS, 1000, 0, false, Map.of("spring.datasource.url",
+                "jdbc:h2:mem:search-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE"));
+        books = fixture.context().getBean(BookController.class);
+        bookRepository = fixture.context().getBean(BookRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Page<Book> like() {
+        return bookRepository.findAll(BookRepository.titleContains(title), PageRequest.of(0, SIZE));
+    }
+
+    @Benchmark
+    public Page<Book> index() {
+        return books.getAllBooksPageable(0, SIZE, title, null);
+    }
+}
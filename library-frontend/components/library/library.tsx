@@ -15,12 +15,7 @@ const Library = () => {
 
   const fetchData = useCallback(async () => {
     try {
-      const [notificationsData, expiredBooksData] = await Promise.all([
-        LibraryService.getAdminNotifications(),
-        LibraryService.getExpiredBooks(),
-      ]);
-
-      setNotifications(notificationsData);
+      const expiredBooksData = await LibraryService.getExpiredBooks();
       setExpiredBooks(expiredBooksData);
     } catch {}
   }, []);
@@ -34,6 +29,11 @@ const Library = () => {
     return () => clearInterval(interval);
   }, [fetchData]);
 
+  // Notifications are pushed by the backend instead of polled
+  useEffect(() => {
+    return LibraryService.streamAdminNotifications(setNotifications);
+  }, []);
+
   const handleApprove = async (
     bookId: number,
     memberId: number,
@@ -52,10 +52,10 @@ export default function MemberBookManager({ memberId }: { memberId: number }) {
     loadMember();
   }, [memberId]);
 
-  // Fetch all available books
-  const loadAvailableBooks = async () => {
+  // Fetch the first page of available books, filtered by title on the server
+  const loadAvailableBooks = async (title?: string) => {
     try {
-      const books = await MemberService.getAvailableBooks(memberId);
+      const books = await MemberService.getAvailableBooks(memberId, title);
       setOptions(
         books.map((b) => ({
           value: b.id!,
@@ -301,6 +301,10 @@ return (
               options={options}
               value={selectedOption}
               onChange={handleChange}
+              onInputChange={(input, { action }) => {
+                if (action === "input-change") loadAvailableBooks(input);
+              }}
+              filterOption={null}
               isClearable
               placeholder="Select a book..."
               className="text-black"
@@ -6,4 +6,13 @@ id?: number;
 book: Book;
 member: Member;
 duration: number; // number of hours
-};
\ No newline at end of file
+};
+
+// Pushed on /library/notifications/stream
+export type NotificationEvent = {
+type: "snapshot" | "add" | "remove";
+bookId?: number;
+memberId?: number;
+notification?: NotificationDTO;
+notifications?: NotificationDTO[];
+};
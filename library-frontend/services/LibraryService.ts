@@ -4,7 +4,7 @@ import { Book } from "@/models/Book";
 import { BookBorrowResponse } from "@/models/BookBorrowResponse";
 import { Member } from "@/models/Member";
 import { ReadingActivity } from "@/models/ReadingActivity";
-import { NotificationDTO } from "@/models/NotificationDTO";
+import { NotificationDTO, NotificationEvent } from "@/models/NotificationDTO";
 import axios from "axios";
 
 
@@ -24,6 +24,41 @@ return res.data;
 },
 
 
+/**
+* Subscribe to live admin notifications (Server-Sent Events).
+* onChange receives the full, up-to-date list after every change.
+* Returns a function that closes the stream.
+*/
+streamAdminNotifications(onChange: (notifications: NotificationDTO[]) => void): () => void {
+let current: NotificationDTO[] = [];
+const source = new EventSource(`${API_URL}/notifications/stream`);
+const sameEntry = (n: NotificationDTO, e: NotificationEvent) =>
+n.book.id === e.bookId && n.member.id === e.memberId;
+
+source.addEventListener("snapshot", (msg) => {
+const event: NotificationEvent = JSON.parse((msg as MessageEvent).data);
+current = event.notifications ?? [];
+onChange(current);
+});
+source.addEventListener("add", (msg) => {
+const event: NotificationEvent = JSON.parse((msg as MessageEvent).data);
+const index = current.findIndex((n) => sameEntry(n, event));
+current = index >= 0
+? current.map((n, i) => (i === index ? event.notification! : n))
+: [...current, event.notification!];
+onChange(current);
+});
+source.addEventListener("remove", (msg) => {
+const event: NotificationEvent = JSON.parse((msg as MessageEvent).data);
+current = current.filter((n) => !sameEntry(n, event));
+onChange(current);
+});
+// EventSource reconnects by itself and receives a fresh snapshot
+
+return () => source.close();
+},
+
+
 /**
 * Approve the next reader for a given bookId. The backend should handle picking/polling the queue
 * Expected return: { success: boolean, message: string, rank?: number }
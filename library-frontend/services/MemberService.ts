@@ -34,8 +34,11 @@ export const MemberService = {
     return response.data;
   },
 
- getAvailableBooks: async (id: number): Promise<Book[]> => {
-  const response = await axios.get(`${API_URL}/available/${id}`);
+ // Books the member is not reading, one page sorted by id (pass the last id as afterId for the next one)
+ getAvailableBooks: async (id: number, title?: string, afterId?: number, size?: number): Promise<Book[]> => {
+  const response = await axios.get(`${API_URL}/available/${id}`, {
+    params: { title, afterId, size },
+  });
   return response.data;
 },
 // Get borrowed books of member